@@ -0,0 +1,341 @@
+/**
+ * BiolumeBench.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: Micro-benchmarks for the hot paths of the Biolume Simulation
+ * Engine. Every benchmark is warmed up, then measured over several timed
+ * iterations, and reports its throughput (operations per second) and the
+ * amount of memory it allocates per operation.
+ * - Benchmarks: step.<OPCODE> (Biolume.step() with every cell running only
+ * that instruction), stepPopulation.<grid>, pressure.one/two/clones (the
+ * global color pressure with one or both targets, or over clones; ".cycles"
+ * with SimConfig.pressure_fitness = DISPLAY_CYCLES), reproduce (reproduceBiolume()
+ * plus the offspring's mutate()) and localBroadcast.
+ * - This lives in its own source folder and compiles against src/. See
+ * readme.txt in this folder for how to build and run it.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Properties;
+
+public class BiolumeBench {
+
+    /**************************************************************************
+     * Harness.
+     */
+
+	/**
+	 * A benchmark: a setup, and an operation that is timed repeatedly.
+	 */
+	static abstract class Bench {
+
+		// Name of the benchmark.
+		final String name;
+
+		// Amount of operations performed by every call to run().
+		final int ops_per_call;
+
+		Bench(String name, int ops_per_call) {
+			this.name = name;
+			this.ops_per_call = ops_per_call;
+		}
+
+		// Build the state the benchmark works on (not timed).
+		abstract void setup();
+
+		// Perform ops_per_call operations.
+		abstract void run();
+
+		// Release the state built by setup().
+		void teardown() {
+		}
+	}
+
+	// Warmup and measurement settings (overridable from the command line).
+	private static int warmup_iterations = 3;
+	private static int iterations = 5;
+	private static long iteration_ms = 500;
+
+	// Per-thread allocation counter (null if the JVM does not provide one).
+	private static final com.sun.management.ThreadMXBean THREADS = allocationCounter();
+
+	private static com.sun.management.ThreadMXBean allocationCounter() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (!(bean instanceof com.sun.management.ThreadMXBean)) return null;
+		com.sun.management.ThreadMXBean sun_bean = (com.sun.management.ThreadMXBean) bean;
+		if (!sun_bean.isThreadAllocatedMemorySupported()) return null;
+		sun_bean.setThreadAllocatedMemoryEnabled(true);
+		return sun_bean;
+	}
+
+	private static long allocatedBytes() {
+		if (THREADS == null) return 0;
+		return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	/**
+	 * This method runs one benchmark and prints its results.
+	 * @param b:	The benchmark.
+	 */
+	private static void measure(Bench b) {
+
+		b.setup();
+
+		// Calibrate the amount of calls between clock reads (about 1 ms).
+		long calls = 1;
+		while (true) {
+			long start = System.nanoTime();
+			for (long c = 0; c < calls; c++) b.run();
+			if (System.nanoTime() - start >= 1000000 || calls >= (1L << 30)) break;
+			calls *= 2;
+		}
+
+		double[] ops_per_s = new double[iterations];
+		double bytes_per_op = 0;
+		for (int it = -warmup_iterations; it < iterations; it++) {
+			long done = 0;
+			long bytes = allocatedBytes();
+			long start = System.nanoTime();
+			long end = start + iteration_ms * 1000000;
+			long now;
+			do {
+				for (long c = 0; c < calls; c++) b.run();
+				done += calls;
+				now = System.nanoTime();
+			} while (now < end);
+			bytes = allocatedBytes() - bytes;
+			if (it >= 0) {
+				double ops = (double) done * b.ops_per_call;
+				ops_per_s[it] = ops / ((now - start) / 1e9);
+				bytes_per_op += bytes / ops / iterations;
+			}
+		}
+		b.teardown();
+
+		double mean = 0, var = 0;
+		for (double v : ops_per_s) mean += v / iterations;
+		for (double v : ops_per_s) var += (v - mean) * (v - mean) / Math.max(1, iterations - 1);
+
+		System.out.println(String.format("%-34s %14.1f %12.1f %12s", b.name, mean, Math.sqrt(var),
+				(THREADS == null) ? "n/a" : String.format("%.2f", bytes_per_op)));
+	}
+
+    /**************************************************************************
+     * Benchmarks.
+     */
+
+	/**
+	 * @return:	A configuration with the given grid size and overrides.
+	 */
+	private static SimConfig config(int x, int y, String... overrides) {
+		Properties p = new Properties();
+		p.setProperty("x_size", Integer.toString(x));
+		p.setProperty("y_size", Integer.toString(y));
+		for (String o : overrides) {
+			int eq = o.indexOf('=');
+			p.setProperty(o.substring(0, eq), o.substring(eq + 1));
+		}
+		return SimConfig.defaults().with(p);
+	}
+
+	/**
+	 * Biolume.step() of a population in which every cell runs a program made
+	 * of a single instruction. An operation is one Biolume step.
+	 */
+	private static Bench stepOpcode(final Instruction inst) {
+		final SimConfig cfg = config(15, 10);
+		return new Bench("step." + inst, cfg.x_size * cfg.y_size) {
+			Biolume[] cells;
+			void setup() {
+				SimulationEngine engine = new SimulationEngine(cfg, 1);
+				int[] program = new int[CC.EXE_SIZE_MAX];
+				java.util.Arrays.fill(program, inst.ordinal());
+				this.cells = new Biolume[cfg.x_size * cfg.y_size];
+				for (int i = 0; i < cfg.x_size; i++)
+					for (int j = 0; j < cfg.y_size; j++) {
+						Biolume b = engine.getBiolume(i, j);
+						b.loadProgram(program);
+						this.cells[i * cfg.y_size + j] = b;
+					}
+			}
+			void run() {
+				for (int k = 0; k < this.cells.length; k++) this.cells[k].step();
+			}
+			void teardown() {
+				this.cells = null;
+			}
+		};
+	}
+
+	/**
+	 * A full SimulationEngine.stepPopulation(). An operation is one step of
+	 * the whole population.
+	 */
+	private static Bench stepPopulation(final int x, final int y, final boolean parallel) {
+		final SimConfig cfg = config(x, y, "step_mode=" + (parallel ? "PARALLEL" : "SERIAL"));
+		return new Bench("stepPopulation." + (parallel ? "parallel." : "") + x + "x" + y, 1) {
+			SimulationEngine engine;
+			void setup() {
+				this.engine = new SimulationEngine(cfg, 1);
+			}
+			void run() {
+				this.engine.stepPopulation();
+			}
+			void teardown() {
+				this.engine = null;
+			}
+		};
+	}
+
+	/**
+	 * The global color pressure with one or both targets active, over an
+	 * evolved population (some LEDs on), with the kernel or the display
+	 * cycles. An operation is one evaluation of the whole population.
+	 */
+	private static Bench pressure(final boolean both, final boolean cycles) {
+		final SimConfig cfg = config(100, 100, "pressure_fitness=" + (cycles ? "DISPLAY_CYCLES" : "KERNEL"));
+		return new Bench("pressure." + (both ? "two" : "one") + (cycles ? ".cycles" : "") + ".100x100", 1) {
+			SimulationEngine engine;
+			void setup() {
+				this.engine = new SimulationEngine(cfg, 1);
+				for (int s = 0; s < 200; s++) this.engine.stepPopulation();
+				this.engine.setLED0Target(new float[] {CC.MAX_VAR*23/50, CC.MAX_VAR*13/20, CC.MAX_VAR*27/100});
+				this.engine.setLED1Target(new float[] {0, 0, CC.MAX_VAR});
+				this.engine.toggleLED0Pressure();
+				if (both) this.engine.toggleLED1Pressure();
+			}
+			void run() {
+				this.engine.applyPressures();
+			}
+			void teardown() {
+				this.engine = null;
+			}
+		};
+	}
+
+	/**
+	 * The global color pressure with both targets active, over a population
+	 * of clones of a single LED program, stepped for a while so that their
+	 * ages differ, with the kernel or the display cycles. An operation is one
+	 * evaluation of the whole population.
+	 */
+	private static Bench pressureClones(final boolean cycles) {
+		final SimConfig cfg = config(100, 100, "pressure_fitness=" + (cycles ? "DISPLAY_CYCLES" : "KERNEL"));
+		return new Bench("pressure.clones" + (cycles ? ".cycles" : "") + ".100x100", 1) {
+			SimulationEngine engine;
+			void setup() {
+				this.engine = new SimulationEngine(cfg, 1);
+				int[] program = new int[CC.EXE_SIZE_MAX];
+				program[0] = Instruction.LED0_ON.ordinal();
+				program[3] = Instruction.LED1_TOGGLE.ordinal();
+				program[7] = Instruction.LED0_OFF.ordinal();
+				program[11] = Instruction.LED1_ON.ordinal();
+				int[] vars = new int[Variable.NUM_VARS];
+				for (int v = 0; v < vars.length; v++) vars[v] = (v * 37) % CC.MAX_VAR;
+				for (int i = 0; i < cfg.x_size; i++)
+					for (int j = 0; j < cfg.y_size; j++) {
+						this.engine.getBiolume(i, j).loadGenome(program, vars);
+						for (int s = (i * 7 + j * 3) % 50; s > 0; s--) this.engine.getBiolume(i, j).step();
+					}
+				this.engine.setLED0Target(new float[] {CC.MAX_VAR*23/50, CC.MAX_VAR*13/20, CC.MAX_VAR*27/100});
+				this.engine.setLED1Target(new float[] {0, 0, CC.MAX_VAR});
+				this.engine.toggleLED0Pressure();
+				this.engine.toggleLED1Pressure();
+			}
+			void run() {
+				this.engine.applyPressures();
+			}
+			void teardown() {
+				this.engine = null;
+			}
+		};
+	}
+
+	/**
+	 * SimulationEngine.reproduceBiolume(), which picks a neighbor, copies the
+	 * parent's genome over it and mutates it. The repro countdown is 0 so the
+	 * offspring never block later reproductions. An operation is one
+	 * reproduction, with the parents taken in cell id order.
+	 */
+	private static Bench reproduce() {
+		final SimConfig cfg = config(100, 100, "repro_countdown=0");
+		return new Bench("reproduce.100x100", 1) {
+			SimulationEngine engine;
+			int parent = 0;
+			void setup() {
+				this.engine = new SimulationEngine(cfg, 1);
+			}
+			void run() {
+				this.engine.reproduceBiolume(this.parent, false);
+				if (++this.parent == cfg.x_size * cfg.y_size) this.parent = 0;
+			}
+			void teardown() {
+				this.engine = null;
+			}
+		};
+	}
+
+	/**
+	 * SimulationEngine.localBroadcast(). An operation is one broadcast (the
+	 * sender publishing its message buffer in its outbox), with the senders
+	 * taken in cell id order.
+	 */
+	private static Bench localBroadcast() {
+		final SimConfig cfg = config(100, 100);
+		return new Bench("localBroadcast.100x100", 1) {
+			SimulationEngine engine;
+			int origin = 0;
+			void setup() {
+				this.engine = new SimulationEngine(cfg, 1);
+			}
+			void run() {
+				this.engine.localBroadcast(this.origin);
+				if (++this.origin == cfg.x_size * cfg.y_size) this.origin = 0;
+			}
+			void teardown() {
+				this.engine = null;
+			}
+		};
+	}
+
+    /**************************************************************************
+     * Main.
+     */
+
+	/**
+	 * Usage: java BiolumeBench [-w warmups] [-i iterations] [-t ms] [regex]
+	 * Only the benchmarks whose name matches the regex (if any) are run.
+	 */
+	public static void main(String args[]) {
+
+		String filter = null;
+		for (int a = 0; a < args.length; a++) {
+			if (args[a].equals("-w")) warmup_iterations = Integer.parseInt(args[++a]);
+			else if (args[a].equals("-i")) iterations = Integer.parseInt(args[++a]);
+			else if (args[a].equals("-t")) iteration_ms = Long.parseLong(args[++a]);
+			else filter = args[a];
+		}
+
+		ArrayList<Bench> all = new ArrayList<Bench>();
+		for (Instruction inst : Instruction.values()) all.add(stepOpcode(inst));
+		all.add(stepPopulation(15, 10, false));
+		all.add(stepPopulation(100, 100, false));
+		all.add(stepPopulation(1000, 1000, false));
+		all.add(stepPopulation(1000, 1000, true));
+		for (boolean cycles : new boolean[] {false, true}) {
+			all.add(pressure(false, cycles));
+			all.add(pressure(true, cycles));
+			all.add(pressureClones(cycles));
+		}
+		all.add(reproduce());
+		all.add(localBroadcast());
+
+		System.out.println("# " + System.getProperty("java.vm.name") + " " + System.getProperty("java.version")
+				+ ", " + Runtime.getRuntime().availableProcessors() + " cores, " + warmup_iterations + " warmup + "
+				+ iterations + " x " + iteration_ms + " ms iterations");
+		System.out.println(String.format("%-34s %14s %12s %12s", "benchmark", "ops/s", "+-", "B/op"));
+		for (Bench b : all)
+			if (filter == null || b.name.matches(filter)) measure(b);
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * VectorPressureKernel.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: The global color pressure kernel (see PressureKernel.java)
+ * vectorised with the JDK Vector API: as many Biolumes as the preferred
+ * vector holds floats are evaluated at once, gathering their display values
+ * from the store's display array. The remaining Biolumes go through the
+ * scalar kernel.
+ * - The Vector API is an incubator module, so this lives in its own source
+ * folder. Compile it next to src/ (from the Biolume directory) with
+ *
+ *   javac --add-modules jdk.incubator.vector -cp core.jar -d bin src/*.java simd/*.java
+ *
+ * and run with "--add-modules jdk.incubator.vector". PressureKernel.create()
+ * falls back to the scalar kernel whenever this class or the module is
+ * missing.
+ * - The float operations (and their order) are the same as the scalar
+ * kernel's, and lanewise sqrt is correctly rounded, so both kernels give
+ * bit-identical fitness values.
+ */
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorPressureKernel extends PressureKernel {
+
+	// Preferred shape, at most 256 bits: the 512-bit gathers crash C2 on
+	// JDK 17 (seen on an AVX-512 machine).
+	private static final VectorSpecies<Float> FLOATS =
+			(FloatVector.SPECIES_PREFERRED.vectorBitSize() > 256) ? FloatVector.SPECIES_256 : FloatVector.SPECIES_PREFERRED;
+	private static final VectorSpecies<Integer> INTS = VectorSpecies.of(int.class, FLOATS.vectorShape());
+
+	// Offset of each lane's display in the display array.
+	private final int[] lane_offsets = new int[FLOATS.length()];
+
+	public VectorPressureKernel() {
+		for (int k = 0; k < this.lane_offsets.length; k++) this.lane_offsets[k] = k * Variable.NUM_VARS;
+	}
+
+	@Override
+	public String name() {
+		return "vector" + FLOATS.length();
+	}
+
+	@Override
+	public void fitness(int[] display, int first, float[] target, int cells, float[] fitness) {
+
+		FloatVector th = FloatVector.broadcast(FLOATS, target[0]);
+		FloatVector ts = FloatVector.broadcast(FLOATS, target[1]);
+		FloatVector tb = FloatVector.broadcast(FLOATS, target[2]);
+
+		int lanes = FLOATS.length();
+		int id = 0;
+		for (; id + lanes <= cells; id += lanes) {
+			int d = id * Variable.NUM_VARS + first;
+
+			VectorMask<Float> on = gather(display, d + 3, this.lane_offsets).compare(VectorOperators.EQ, (float) CC.ON);
+			if (!on.anyTrue()) {
+				FloatVector.zero(FLOATS).intoArray(fitness, id);
+				continue;
+			}
+
+			FloatVector dh = th.sub(gather(display, d, this.lane_offsets));
+			FloatVector ds = ts.sub(gather(display, d + 1, this.lane_offsets));
+			FloatVector db = tb.sub(gather(display, d + 2, this.lane_offsets));
+
+			// Hue is circular, thus, distances can only be as large as halfway.
+			FloatVector abs = dh.abs();
+			dh = dh.blend(abs.neg().add((float) CC.MAX_VAR), abs.compare(VectorOperators.GT, (float) (CC.MAX_VAR/2)));
+			dh = dh.mul(2.0f);
+
+			FloatVector distance = dh.mul(dh).add(ds.mul(ds)).add(db.mul(db)).sqrt();
+			FloatVector.broadcast(FLOATS, CC.MAX_DIST).sub(distance)
+					.blend(0.0f, on.not())
+					.intoArray(fitness, id);
+		}
+
+		// The rest, one at a time.
+		this.fitness(display, first, target, id, cells, fitness);
+	}
+
+	/**
+	 * @return:	The display values at offset of one Biolume per lane, as floats.
+	 */
+	private static FloatVector gather(int[] display, int offset, int[] lane_offsets) {
+		return (FloatVector) IntVector.fromArray(INTS, display, offset, lane_offsets, 0)
+				.convert(VectorOperators.I2F, 0);
+	}
+}
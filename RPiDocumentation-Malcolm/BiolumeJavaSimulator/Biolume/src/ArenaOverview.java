@@ -0,0 +1,246 @@
+/**
+ * ArenaOverview.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the zoomed out views of the Biolume
+ * arena, for populations too large to be drawn in full detail (see
+ * ArenaRenderer.java, zoom level 0).
+ * - Zoom levels 1 to 6 draw every Biolume as a square of 32, 16... 1 pixels:
+ * LED0 on its left half and LED1 on its right half. Further levels draw
+ * blocks of 2x2, 4x4... Biolumes as single pixels. A pixel that covers more
+ * than one LED shows the dominant color among them: the LEDs are grouped by
+ * similar color (16 hues, 4 saturations and 4 brightnesses) and the pixel
+ * shows the mean color of the largest group.
+ * - The energy view shows the mean energy of the Biolumes under each pixel
+ * instead, from red (no energy) to green (energy_max).
+ * - Reproducing Biolumes count as black LEDs.
+ * - The views are computed from the snapshot's arrays, splitting the rows of
+ * the image across the overview's own fork/join pool.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import processing.core.*;
+
+public class ArenaOverview {
+
+    /**************************************************************************
+     * Arena overview parameters.
+     */
+
+	// Zoom levels drawing single Biolumes (the rest draw blocks).
+	public static final int CELL_LEVELS = 6;
+
+	// Gray of the area beyond the population (background(100)).
+	private static final int GUTTER_COLOR = 0xFF646464;
+
+	// Rows of the image computed by one task.
+	private static final int ROW_GRAIN = 8;
+
+	// Color groups of the dominant color.
+	private static final int GROUPS = 256;
+
+	// Configuration of the simulation, and the image of the view.
+	private final SimConfig cfg;
+	private final PImage view;
+
+	// Threads computing the view (daemons, one per core).
+	private final ForkJoinPool pool = new ForkJoinPool();
+
+    /**************************************************************************
+     * Arena overview methods.
+     */
+
+	/**
+	 * Arena overview constructor.
+	 * @param cfg:	The configuration of the simulation.
+	 * @param width:	The width of the view, in pixels.
+	 * @param height:	The height of the view, in pixels.
+	 */
+	public ArenaOverview(SimConfig cfg, int width, int height) {
+		this.cfg = cfg;
+		this.view = new PImage(width, height, PConstants.RGB);
+	}
+
+	/**
+	 * @param level:	A zoom level (at least 1).
+	 * @return:	The size of a Biolume at that level, in pixels (1 for the
+	 * block levels).
+	 */
+	public static int pitch(int level) {
+		return (level <= CELL_LEVELS) ? 64 >> level : 1;
+	}
+
+	/**
+	 * @param level:	A zoom level (at least 1).
+	 * @return:	The size of the blocks of Biolumes drawn as single pixels at
+	 * that level, in Biolumes (1 for the Biolume levels).
+	 */
+	public static int block(int level) {
+		return (level <= CELL_LEVELS) ? 1 : 1 << (level - CELL_LEVELS);
+	}
+
+	/**
+	 * This method draws the view of a population.
+	 * @param frame:	The snapshot of the population.
+	 * @param level:	The zoom level (at least 1).
+	 * @param first_x:	The x coordinate of the Biolume at the top left.
+	 * @param first_y:	The y coordinate of the Biolume at the top left.
+	 * @param energy:	True for the energy view, false for the LED colors.
+	 * @return:	The image of the view (to be drawn at the origin).
+	 */
+	public PImage render(PopulationSnapshot.Frame frame, int level, int first_x, int first_y, boolean energy) {
+		this.pool.invoke(new RowTask(frame, level, first_x, first_y, energy, 0, this.view.height));
+		this.view.updatePixels();
+		return this.view;
+	}
+
+	/**
+	 * This task draws a range of rows of the view, splitting it in halves
+	 * until ranges are at most ROW_GRAIN rows long.
+	 */
+	private final class RowTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final PopulationSnapshot.Frame frame;
+		private final int level;
+		private final int first_x;
+		private final int first_y;
+		private final boolean energy;
+		private final int from;
+		private final int to;
+
+		RowTask(PopulationSnapshot.Frame frame, int level, int first_x, int first_y, boolean energy, int from, int to) {
+			this.frame = frame;
+			this.level = level;
+			this.first_x = first_x;
+			this.first_y = first_y;
+			this.energy = energy;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from > ROW_GRAIN) {
+				int mid = (this.from + this.to) >>> 1;
+				invokeAll(new RowTask(this.frame, this.level, this.first_x, this.first_y, this.energy, this.from, mid),
+						new RowTask(this.frame, this.level, this.first_x, this.first_y, this.energy, mid, this.to));
+				return;
+			}
+
+			int pitch = pitch(this.level);
+			int block = block(this.level);
+			Groups groups = new Groups();
+			int[] pixels = view.pixels;
+
+			for (int py = this.from; py < this.to; py++) {
+				int row = py * view.width;
+
+				// Rows through the same Biolumes look the same.
+				if (py > this.from && py / pitch == (py - 1) / pitch) {
+					System.arraycopy(pixels, row - view.width, pixels, row, view.width);
+					continue;
+				}
+
+				int y0 = this.first_y + py / pitch * block;
+				int y1 = Math.min(y0 + block, cfg.y_size);
+				for (int px = 0; px < view.width; px += pitch) {
+					int x0 = this.first_x + px / pitch * block;
+					int x1 = Math.min(x0 + block, cfg.x_size);
+					int end = Math.min(px + pitch, view.width);
+
+					if (x0 >= cfg.x_size || y0 >= cfg.y_size) Arrays.fill(pixels, row + px, row + end, GUTTER_COLOR);
+					else if (this.energy) Arrays.fill(pixels, row + px, row + end, energyColor(this.frame, x0, x1, y0, y1));
+					else if (pitch == 1) pixels[row + px] = groups.dominant(this.frame, x0, x1, y0, y1);
+					else if (this.frame.isReproducing(x0, y0)) Arrays.fill(pixels, row + px, row + end, 0xFF000000);
+					else {
+						int half = Math.min(px + pitch / 2, end);
+						Arrays.fill(pixels, row + px, row + half,
+								ledColor(this.frame, x0, y0, Variable.LED0_H, Variable.LED0_S, Variable.LED0_B));
+						Arrays.fill(pixels, row + half, row + end,
+								ledColor(this.frame, x0, y0, Variable.LED1_H, Variable.LED1_S, Variable.LED1_B));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return:	The color of one LED of a Biolume.
+	 */
+	private static int ledColor(PopulationSnapshot.Frame frame, int x, int y, Variable h, Variable s, Variable b) {
+		return 0xFF000000 | FrameExporter.hsbToRGB(frame.getDisplay(x, y, h), frame.getDisplay(x, y, s), frame.getDisplay(x, y, b));
+	}
+
+	/**
+	 * @return:	The color of the mean energy of the Biolumes x0..x1-1,
+	 * y0..y1-1.
+	 */
+	private int energyColor(PopulationSnapshot.Frame frame, int x0, int x1, int y0, int y1) {
+		double sum = 0;
+		for (int x = x0; x < x1; x++)
+			for (int y = y0; y < y1; y++)
+				sum += frame.getEnergy(x, y);
+		double level = Math.max(0, Math.min(1, sum / ((x1 - x0) * (y1 - y0)) / this.cfg.energy_max));
+		return 0xFF000000 | FrameExporter.hsbToRGB((int) (level * CC.MAX_VAR / 3), CC.MAX_VAR, CC.MAX_VAR);
+	}
+
+	/**
+	 * The color groups of one task, reused from pixel to pixel.
+	 */
+	private static final class Groups {
+
+		private final int[] count = new int[GROUPS];
+		private final int[] sum_h = new int[GROUPS];
+		private final int[] sum_s = new int[GROUPS];
+		private final int[] sum_b = new int[GROUPS];
+
+		// Groups with LEDs, to be cleared after each pixel.
+		private final int[] used = new int[GROUPS];
+		private int used_count = 0;
+		private int largest = -1;
+
+		/**
+		 * @return:	The dominant color of the LEDs of the Biolumes x0..x1-1,
+		 * y0..y1-1.
+		 */
+		int dominant(PopulationSnapshot.Frame frame, int x0, int x1, int y0, int y1) {
+			for (int x = x0; x < x1; x++)
+				for (int y = y0; y < y1; y++) {
+					if (frame.isReproducing(x, y)) {
+						this.add(0, 0, 0);
+						this.add(0, 0, 0);
+						continue;
+					}
+					this.add(frame.getDisplay(x, y, Variable.LED0_H), frame.getDisplay(x, y, Variable.LED0_S),
+							frame.getDisplay(x, y, Variable.LED0_B));
+					this.add(frame.getDisplay(x, y, Variable.LED1_H), frame.getDisplay(x, y, Variable.LED1_S),
+							frame.getDisplay(x, y, Variable.LED1_B));
+				}
+
+			int g = this.largest, n = this.count[g];
+			int color = 0xFF000000 | FrameExporter.hsbToRGB(this.sum_h[g] / n, this.sum_s[g] / n, this.sum_b[g] / n);
+
+			for (int i = 0; i < this.used_count; i++) {
+				int u = this.used[i];
+				this.count[u] = this.sum_h[u] = this.sum_s[u] = this.sum_b[u] = 0;
+			}
+			this.used_count = 0;
+			this.largest = -1;
+			return color;
+		}
+
+		private void add(int h, int s, int b) {
+			int g = ((h * 16 / (CC.MAX_VAR + 1)) << 4) | ((s * 4 / (CC.MAX_VAR + 1)) << 2) | (b * 4 / (CC.MAX_VAR + 1));
+			if (this.count[g]++ == 0) this.used[this.used_count++] = g;
+			this.sum_h[g] += h;
+			this.sum_s[g] += s;
+			this.sum_b[g] += b;
+			if (this.largest < 0 || this.count[g] > this.count[this.largest]) this.largest = g;
+		}
+	}
+}
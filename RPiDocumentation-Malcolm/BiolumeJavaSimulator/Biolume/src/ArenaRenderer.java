@@ -0,0 +1,275 @@
+/**
+ * ArenaRenderer.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the renderer of the Biolume arena at
+ * full detail. The arena is kept in a single image, and only the Biolumes whose look
+ * changed since the last frame are redrawn into its pixels, so the viewer
+ * blits one image per frame instead of issuing several draw calls per
+ * Biolume.
+ * - The look of a Biolume (LED colors, speaker, battery level, or its
+ * reproduction countdown) is summarized in one key per cell; a cell is
+ * redrawn only when its key changes. Checking the keys is a pass over the
+ * snapshot's arrays, and the pixels written are proportional to change.
+ * - Large populations are shown through a window of cols x rows Biolumes
+ * (see Simulator.keyPressed()); moving the window redraws it whole.
+ * - Cells look as they did when drawn with rect() and image(): the LEDs as
+ * two black-outlined halves, then the speaker and battery icons blended over
+ * them, or the reproduction image and countdown. Countdown cells are
+ * rendered once per value and reused.
+ */
+
+import java.util.HashMap;
+
+import processing.core.*;
+
+public class ArenaRenderer {
+
+    /**************************************************************************
+     * Arena renderer parameters.
+     */
+
+	// Gray of the gutters (background(100) in the Simulator).
+	private static final int GUTTER_COLOR = 0xFF646464;
+	private static final int BLACK = 0xFF000000;
+
+	// Key of a cell that must be redrawn whatever it shows.
+	private static final long STALE = -1L;
+
+	// The applet (for its colors and fonts), configuration and label font.
+	private final PApplet applet;
+	private final SimConfig cfg;
+	private final PFont font;
+
+	// Biolumes in the window, and the Biolume at its top left.
+	private final int cols;
+	private final int rows;
+	private int first_x = 0;
+	private int first_y = 0;
+
+	// The arena image, and the key of what each cell of the window shows.
+	private final PImage arena;
+	private final long[] shown;
+
+	// Battery icons, by battery level.
+	private final PImage[] batteries;
+
+	// Reproduction images with their countdown label, by label key.
+	private final HashMap<Integer, int[]> repro_labels = new HashMap<Integer, int[]>();
+
+	// Amount of cells redrawn by the last render().
+	private int redrawn = 0;
+
+    /**************************************************************************
+     * Arena renderer methods.
+     */
+
+	/**
+	 * Arena renderer constructor. The Simulator's images must be loaded.
+	 * @param applet:	The applet drawing the arena (in HSB color mode).
+	 * @param cfg:	The configuration of the simulation.
+	 * @param font:	The font of the countdown labels.
+	 * @param cols:	The width of the window, in Biolumes.
+	 * @param rows:	The height of the window, in Biolumes.
+	 */
+	public ArenaRenderer(PApplet applet, SimConfig cfg, PFont font, int cols, int rows) {
+		this.applet = applet;
+		this.cfg = cfg;
+		this.font = font;
+		this.cols = Math.min(cols, cfg.x_size);
+		this.rows = Math.min(rows, cfg.y_size);
+		this.arena = new PImage(this.cols * Simulator.X_DISP, this.rows * Simulator.Y_DISP, PConstants.RGB);
+		java.util.Arrays.fill(this.arena.pixels, GUTTER_COLOR);
+		this.shown = new long[this.cols * this.rows];
+		this.invalidate();
+
+		this.batteries = new PImage[] {Simulator.battery0, Simulator.battery1, Simulator.battery2, Simulator.battery3,
+				Simulator.battery4};
+		Simulator.repro.loadPixels();
+		Simulator.sound.loadPixels();
+		for (PImage battery : this.batteries) battery.loadPixels();
+	}
+
+	/**
+	 * This method makes the next render() redraw every cell.
+	 */
+	public void invalidate() {
+		java.util.Arrays.fill(this.shown, STALE);
+	}
+
+	/**
+	 * This method brings the arena image up to date with a snapshot of the
+	 * population, redrawing the cells whose look changed.
+	 * @param frame:	The snapshot of the population.
+	 * @param first_x:	The x coordinate of the Biolume at the top left.
+	 * @param first_y:	The y coordinate of the Biolume at the top left.
+	 * @return:	The arena image (to be drawn at the origin).
+	 */
+	public PImage render(PopulationSnapshot.Frame frame, int first_x, int first_y) {
+
+		// Keep the window within the population.
+		first_x = Math.max(0, Math.min(first_x, this.cfg.x_size - this.cols));
+		first_y = Math.max(0, Math.min(first_y, this.cfg.y_size - this.rows));
+		if (first_x != this.first_x || first_y != this.first_y) {
+			this.first_x = first_x;
+			this.first_y = first_y;
+			this.invalidate();
+		}
+
+		this.redrawn = 0;
+		for (int i = 0; i < this.cols; i++)
+			for (int j = 0; j < this.rows; j++) {
+				long key = this.key(frame, first_x + i, first_y + j);
+				int id = i * this.rows + j;
+				if (key == this.shown[id]) continue;
+
+				this.drawCell(frame, first_x + i, first_y + j, i, j, key);
+				this.arena.updatePixels(i * Simulator.X_DISP, j * Simulator.Y_DISP, Simulator.X_DISP, Simulator.Y_DISP);
+				this.shown[id] = key;
+				this.redrawn++;
+			}
+		return this.arena;
+	}
+
+	/**
+	 * @return:	The amount of cells redrawn by the last render().
+	 */
+	public int getRedrawn() {
+		return this.redrawn;
+	}
+
+	/**
+	 * This method summarizes what a cell shows: 1 bit for reproducing; then
+	 * either the countdown and offspring flag, or the HSB values of both LEDs
+	 * (8 bits each), the speaker flag and the battery level.
+	 * @return:	The key of the cell (never STALE).
+	 */
+	private long key(PopulationSnapshot.Frame frame, int i, int j) {
+		if (frame.isReproducing(i, j))
+			return (1L << 62) | ((long) frame.getReproCountdown(i, j) << 1) | (frame.isOffspring(i, j) ? 1 : 0);
+
+		long key = 0;
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED0_H) & 0xFF);
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED0_S) & 0xFF);
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED0_B) & 0xFF);
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED1_H) & 0xFF);
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED1_S) & 0xFF);
+		key = (key << 8) | (frame.getDisplay(i, j, Variable.LED1_B) & 0xFF);
+		key = (key << 1) | (frame.speakerIsOn(i, j) ? 1 : 0);
+		return (key << 3) | this.batteryLevel(frame.getEnergy(i, j));
+	}
+
+	/**
+	 * @param energy:	The energy of a Biolume.
+	 * @return:	The battery icon showing it (0 to 4).
+	 */
+	private int batteryLevel(double energy) {
+		if (energy <= 0) return 0;
+		if (energy <= 0.25 * this.cfg.energy_max) return 1;
+		if (energy <= 0.5 * this.cfg.energy_max) return 2;
+		if (energy <= 0.75 * this.cfg.energy_max) return 3;
+		return 4;
+	}
+
+	/**
+	 * This method draws a cell (the Biolume and its gutters) into the arena.
+	 * @param i:	The x coordinate of the Biolume.
+	 * @param j:	The y coordinate of the Biolume.
+	 * @param col:	The column of the cell in the window.
+	 * @param row:	The row of the cell in the window.
+	 * @param key:	The key of what the cell shows.
+	 */
+	private void drawCell(PopulationSnapshot.Frame frame, int i, int j, int col, int row, long key) {
+
+		int x = col * Simulator.X_DISP;
+		int y = row * Simulator.Y_DISP;
+
+		if (frame.isReproducing(i, j)) {
+			this.blend(this.reproLabel(frame.getReproCountdown(i, j), frame.isOffspring(i, j)),
+					Simulator.X_DISP, Simulator.Y_DISP, x, y);
+			return;
+		}
+
+		this.fill(x, y, Simulator.X_DISP, Simulator.Y_DISP, GUTTER_COLOR, false);
+
+		int led0 = this.applet.color(frame.getDisplay(i, j, Variable.LED0_H), frame.getDisplay(i, j, Variable.LED0_S),
+				frame.getDisplay(i, j, Variable.LED0_B));
+		int led1 = this.applet.color(frame.getDisplay(i, j, Variable.LED1_H), frame.getDisplay(i, j, Variable.LED1_S),
+				frame.getDisplay(i, j, Variable.LED1_B));
+		this.fill(x, y, CC.B_WIDTH/2, CC.B_HEIGHT, led0, true);
+		this.fill(x + CC.B_WIDTH/2, y, CC.B_WIDTH/2, CC.B_HEIGHT, led1, true);
+
+		if ((key & 8) != 0) this.blend(Simulator.sound, x + CC.B_WIDTH/4, y + CC.B_HEIGHT/8);
+		this.blend(this.batteries[(int) (key & 7)], x, y + CC.B_HEIGHT*9/16);
+	}
+
+	/**
+	 * This method fills a rectangle of the arena with a color.
+	 * @param outline:	True to draw a black outline (like rect()'s stroke).
+	 */
+	private void fill(int x, int y, int w, int h, int color, boolean outline) {
+		int[] pixels = this.arena.pixels;
+		int width = this.arena.width;
+		for (int r = 0; r < h; r++)
+			for (int c = 0; c < w; c++)
+				pixels[(y + r) * width + x + c] = (outline && (r == 0 || c == 0 || r == h - 1 || c == w - 1)) ? BLACK : color;
+	}
+
+	/**
+	 * This method blends an image over the arena (alpha compositing),
+	 * clipped to the cell at (x, y); the battery icon overflows it.
+	 */
+	private void blend(PImage sprite, int x, int y) {
+		this.blend(sprite.pixels, sprite.width, sprite.height, x, y);
+	}
+
+	private void blend(int[] sprite, int w, int h, int x, int y) {
+		int[] pixels = this.arena.pixels;
+		int width = this.arena.width;
+		int x_end = (x / Simulator.X_DISP + 1) * Simulator.X_DISP;
+		int y_end = (y / Simulator.Y_DISP + 1) * Simulator.Y_DISP;
+		for (int r = 0; r < h && y + r < y_end; r++)
+			for (int c = 0; c < w && x + c < x_end; c++) {
+				int src = sprite[r * w + c];
+				int a = src >>> 24;
+				if (a == 0) continue;
+				int p = (y + r) * width + x + c;
+				if (a == 255) {
+					pixels[p] = src;
+					continue;
+				}
+				int dst = pixels[p];
+				int red = (((src >> 16) & 0xFF) * a + ((dst >> 16) & 0xFF) * (255 - a)) / 255;
+				int green = (((src >> 8) & 0xFF) * a + ((dst >> 8) & 0xFF) * (255 - a)) / 255;
+				int blue = ((src & 0xFF) * a + (dst & 0xFF) * (255 - a)) / 255;
+				pixels[p] = 0xFF000000 | (red << 16) | (green << 8) | blue;
+			}
+	}
+
+	/**
+	 * This method returns a whole cell showing the reproduction image with
+	 * its countdown label ("countdown(c)" for an offspring, "countdown(p)"
+	 * for a parent), rendering it the first time.
+	 * @return:	The pixels of the cell (opaque).
+	 */
+	private int[] reproLabel(int countdown, boolean offspring) {
+		int label = 2 * countdown + (offspring ? 1 : 0);
+		int[] pixels = this.repro_labels.get(label);
+		if (pixels == null) {
+			PGraphics g = this.applet.createGraphics(Simulator.X_DISP, Simulator.Y_DISP, PConstants.JAVA2D);
+			g.beginDraw();
+			g.background(100);
+			g.fill(0);
+			g.rect(0, 0, CC.B_WIDTH, CC.B_HEIGHT);
+			g.image(Simulator.repro, 0, 0, CC.B_WIDTH, CC.B_HEIGHT);
+			g.textFont(this.font, 15);
+			g.fill(255);
+			g.text(countdown + "(" + (offspring ? "c" : "p") + ")", 14, 30);
+			g.endDraw();
+			g.loadPixels();
+			pixels = g.pixels.clone();
+			this.repro_labels.put(label, pixels);
+		}
+		return pixels;
+	}
+}
@@ -3,12 +3,14 @@
  * @author: Tony J. Clark
  * @date: July 28, 2011
  * @description: Biolume Simulator Main file. 
+ * - Usage: java BSim [config.properties]
  */
 import processing.core.*;
 
 public class BSim {
 
 	public static void main(String args[]) {
+		if (args.length > 0) System.setProperty("biolume.config", args[0]);
 	    PApplet.main(new String[] { "Simulator" });
 	  }
 }
@@ -0,0 +1,67 @@
+/**
+ * BSimHeadless.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: Biolume Simulator main file for runs without a display. The
+ * population is stepped as fast as the CPU allows and a short summary is
+ * printed at the end.
+ * - Usage: java BSimHeadless [steps] [seed] [serial|parallel] [key=value ...]
+ * where the key=value pairs configure the simulation (see SimConfig.java),
+ * e.g. "config=big.properties x_size=1000 y_size=1000".
+ * - Settings starting with "export_" record the run instead (see
+ * FrameExporter.fromSettings()), e.g. "export_format=PNG export_every=10".
+ * The steps wait for the exporter unless "export_block=false".
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Properties;
+
+public class BSimHeadless {
+
+	public static void main(String args[]) throws IOException, InterruptedException {
+
+		// Split the positional arguments from the configuration and the
+		// export settings.
+		ArrayList<String> positional = new ArrayList<String>();
+		ArrayList<String> settings = new ArrayList<String>();
+		Properties export = new Properties();
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq > 0 && arg.startsWith("export_")) export.setProperty(arg.substring(7, eq).trim(), arg.substring(eq + 1).trim());
+			else if (eq > 0) settings.add(arg);
+			else positional.add(arg);
+		}
+		SimConfig cfg = SimConfig.fromArgs(settings.toArray(new String[0]));
+
+		int steps = (positional.size() > 0) ? Integer.parseInt(positional.get(0)) : 10000;
+		long seed = (positional.size() > 1) ? Long.parseLong(positional.get(1)) : 0;
+		boolean parallel = (positional.size() > 2) ? positional.get(2).equalsIgnoreCase("parallel") : (cfg.step_mode == CC.PARALLEL);
+
+		SimulationEngine engine = new SimulationEngine(cfg, seed);
+		engine.setStepMode(parallel ? CC.PARALLEL : CC.SERIAL);
+		FrameExporter exporter = FrameExporter.fromSettings(cfg, export, true);
+		engine.setExporter(exporter);
+
+		long start = System.nanoTime();
+		for (int s = 0; s < steps; s++)
+			engine.stepPopulation();
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// Wait for the frames still being written.
+		if (exporter != null) {
+			exporter.close();
+			System.out.println("Frames: " + exporter.getWritten() + " (" + exporter.getWidth() + "x" + exporter.getHeight()
+					+ ")\tDropped: " + exporter.getDropped() + "\tDone after: " + (float) ((System.nanoTime() - start) / 1e9) + " s");
+		}
+
+		// Summarize the final population.
+		RunSummary summary = new RunSummary(engine, seed, steps, seconds);
+
+		System.out.println("Grid: " + cfg.x_size + "x" + cfg.y_size + "\tSteps: " + steps + "\tSeed: " + seed + "\tMode: " + (parallel ? "parallel" : "serial"));
+		System.out.println("Time: " + (float) seconds + " s\tSteps/s: " + (float) (steps / seconds));
+		System.out.println("Mean energy: " + (float) summary.mean_energy + "\tMean genome size: " + (float) summary.mean_genome_size);
+		System.out.println("Genotypes: " + summary.genotypes + "\tDominant share: " + (float) summary.dominant_share
+				+ "\tPhylogeny: " + engine.getGenotypes().phylogenySize() + " taxa");
+	}
+}
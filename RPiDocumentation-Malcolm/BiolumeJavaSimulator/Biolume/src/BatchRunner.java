@@ -0,0 +1,124 @@
+/**
+ * BatchRunner.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: Biolume Simulator main file for replicate experiments. It
+ * executes N independent populations (seeds first_seed, first_seed + 1, ...)
+ * concurrently on a bounded thread pool, each for a fixed number of steps,
+ * and prints the summary of every run as soon as it is done (tab separated,
+ * see RunSummary.java), followed by the mean of each statistic.
+ * - Usage: java BatchRunner runs steps [first_seed] [threads] [key=value ...]
+ * where threads defaults to one per available core and the key=value pairs
+ * configure every run (see SimConfig.java).
+ * - Each run is stepped serially: the runs themselves keep the cores busy,
+ * and nesting the parallel step mode would only oversubscribe them.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class BatchRunner {
+
+	/**
+	 * This method executes the given runs on a pool of threads and reports
+	 * every summary as soon as its run is done.
+	 * @param cfg:	The configuration of every run.
+	 * @param runs:	The amount of runs.
+	 * @param steps:	The amount of steps of every run.
+	 * @param first_seed:	The seed of the first run (the rest follow it).
+	 * @param threads:	The amount of runs executed at the same time.
+	 * @return:	The summaries of the successful runs, in completion order.
+	 * @throws:	InterruptedException if interrupted while waiting for a run.
+	 */
+	public static ArrayList<RunSummary> runAll(final SimConfig cfg, int runs, final int steps,
+			long first_seed, int threads) throws InterruptedException {
+
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<RunSummary> done = new ExecutorCompletionService<RunSummary>(pool);
+		ArrayList<RunSummary> summaries = new ArrayList<RunSummary>();
+
+		try {
+			for (int r = 0; r < runs; r++) {
+				final long seed = first_seed + r;
+				done.submit(new Callable<RunSummary>() {
+					public RunSummary call() {
+						SimulationEngine engine = new SimulationEngine(cfg, seed);
+						engine.setStepMode(CC.SERIAL);
+						long start = System.nanoTime();
+						for (int s = 0; s < steps; s++)
+							engine.stepPopulation();
+						return new RunSummary(engine, seed, steps, (System.nanoTime() - start) / 1e9);
+					}
+				});
+			}
+
+			for (int r = 0; r < runs; r++) {
+				try {
+					RunSummary summary = done.take().get();
+					summaries.add(summary);
+					System.out.println(summary.toRow());
+				}
+				catch (ExecutionException e) {
+					// Report the failed run and keep collecting the others.
+					System.err.println("Run failed: " + e.getCause());
+				}
+			}
+		}
+		finally {
+			pool.shutdownNow();
+		}
+		return summaries;
+	}
+
+	public static void main(String args[]) throws IOException, InterruptedException {
+
+		// Split the positional arguments from the configuration.
+		ArrayList<String> positional = new ArrayList<String>();
+		ArrayList<String> settings = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.indexOf('=') > 0) settings.add(arg);
+			else positional.add(arg);
+		}
+		if (positional.size() < 2) {
+			System.err.println("Usage: java BatchRunner runs steps [first_seed] [threads] [key=value ...]");
+			System.exit(2);
+		}
+		SimConfig cfg = SimConfig.fromArgs(settings.toArray(new String[0]));
+
+		int runs = Integer.parseInt(positional.get(0));
+		int steps = Integer.parseInt(positional.get(1));
+		long first_seed = (positional.size() > 2) ? Long.parseLong(positional.get(2)) : 0;
+		int threads = (positional.size() > 3) ? Integer.parseInt(positional.get(3)) : Runtime.getRuntime().availableProcessors();
+
+		System.out.println(RunSummary.header());
+		long start = System.nanoTime();
+		ArrayList<RunSummary> summaries = runAll(cfg, runs, steps, first_seed, Math.max(1, Math.min(threads, runs)));
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		// Means over the successful runs.
+		double energy = 0, exe_size = 0, led0 = 0, led1 = 0, speaker = 0, genotypes = 0, dominant = 0;
+		for (RunSummary s : summaries) {
+			energy += s.mean_energy;
+			exe_size += s.mean_genome_size;
+			led0 += s.led0_on;
+			led1 += s.led1_on;
+			speaker += s.speaker_on;
+			genotypes += s.genotypes;
+			dominant += s.dominant_share;
+		}
+		int n = Math.max(1, summaries.size());
+		System.out.println("# runs: " + summaries.size() + "/" + runs + "\ttime: " + (float) seconds + " s"
+				+ "\tmean_energy: " + (float) (energy / n) + "\tmean_genome_size: " + (float) (exe_size / n)
+				+ "\tled0_on: " + (float) (led0 / n) + "\tled1_on: " + (float) (led1 / n)
+				+ "\tspeaker_on: " + (float) (speaker / n) + "\tgenotypes: " + (float) (genotypes / n)
+				+ "\tdominant_share: " + (float) (dominant / n));
+
+		if (summaries.size() < runs) System.exit(1);
+	}
+}
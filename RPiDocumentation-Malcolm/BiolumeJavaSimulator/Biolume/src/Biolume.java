@@ -12,8 +12,7 @@
  * actuators in a mouse-interactive environment.  
  */
 
-import java.awt.Point; 
-import java.util.Random;
+import java.util.Arrays;
 
 public class Biolume {
 
@@ -21,55 +20,24 @@ public class Biolume {
      * Biolume parameters.
      */
 	
-	// Random number generator.
-	public static final Random RAND = new Random();
+	// The store that holds the state of this Biolume (and its population).
+	private final PopulationStore store;
 	
-	// Max genome size (including variables and insertion space).
-	private static final int GENOME_SIZE_MAX = (CC.EXE_SIZE_MAX + Variable.NUM_VARS);
+	// This Biolume's cell id within the store.
+	private final int id;
 	
-    // Biolume genome, including instructions and variables.
-    private int[] genome = new int[GENOME_SIZE_MAX];
+	// The configuration of the simulation.
+	private final SimConfig cfg;
 	
-	// size of this Biolume's executable genome.
-    private int exe_size;
-
-	// This Biolume's location.
-	private Point location = new Point();
+	// Random number streams (this Biolume draws from stream id).
+	private final RandomStreams rng;
 	
-    // Pointers.
-    private int pc;
-    private int label;
-    
-    // Flag (relevant only in the simulator, for display purposes).
-    private boolean is_offspring;
-    private boolean alt_step;
-    
-    // Number of steps since this Biolume was replaced.
-    private int age;
-    
-	// Energy acquired by this Biolume.
-    private double energy;
-    
-    // counter used to determine a Biolume's reproduction status
-    private int repro_countdown;
+	// Offsets of this Biolume's sensors and displays in the store.
+	private final int s;
+	private final int d;
     
-    // Biolume sensor countdown timers.
-    private int[] sensor_countdowns = new int[CC.NUM_SENSORS];
-
-	// Current status of the LEDs and speaker.
-    private int[] display_current = new int[Variable.NUM_VARS];
-    
-    // Previous status of the LEDs and speaker.
-    private int[] display_previous = new int[Variable.NUM_VARS];
-    
-    // Buffer for the display and messaging system.
-    private int[] display_buffer = new int[Variable.NUM_VARS];
-
-	// Buffer used for messaging other Biolumes.
-    private int[] message_buffer = new int[Variable.NUM_VARS]; 
-    
-    // Reference to the processing application.
-    private Simulator sim;
+    // Reference to the simulation engine.
+    private SimulationEngine sim;
     
     /**************************************************************************
      * Biolume methods. 
@@ -77,30 +45,36 @@ public class Biolume {
     
 	/**
 	 * Biolume constructor method. 
-	 * @param parent:	A reference to the Processing application.
-	 * @param x:	The x coordinate of this Biolume.
-	 * @param y:	The y coordinate of this Biolume.
+	 * @param parent:	A reference to the simulation engine.
+	 * @param store:	The store that holds this Biolume's state.
+	 * @param rng:	The random number streams of the simulation.
+	 * @param id:	The cell id (x * y_size + y) of this Biolume.
 	 */
-	Biolume(Simulator parent, int x, int y) {
+	Biolume(SimulationEngine parent, PopulationStore store, RandomStreams rng, int id) {
 		
-		// Set the parent to the parent processing application.
+		// Set the parent to the parent simulation engine.
 		this.sim = parent;
+		this.cfg = parent.getConfig();
 		
 		// Set this Biolume's address.
-		this.location.x = x;
-		this.location.y = y;
+		this.store = store;
+		this.id = id;
+		this.rng = rng;
+		this.s = id * CC.NUM_SENSORS;
+		this.d = id * Variable.NUM_VARS;
 		
-		// Set this Biolume's initial genome size.
-	    this.exe_size = CC.EXE_SIZE_INIT;
-	    
-	    // Initialize the genome to random instructions.
-	    for (int i = 0; i < this.exe_size; i++)
-	        this.genome[i] = RAND.nextInt(Instruction.INST_SET_SIZE);
-	    this.makeViable(); // Make sure the Biolume is viable.
+		// Initialize the genome to random instructions.
+		int[] code = new int[CC.EXE_SIZE_INIT];
+	    for (int i = 0; i < code.length; i++)
+	        code[i] = this.rng.nextInt(this.id, Instruction.INST_SET_SIZE);
+	    Genome.Editor genome = new Genome.Editor(new Genome(code, new int[Variable.NUM_VARS]));
+	    this.makeViable(genome, this.id); // Make sure the Biolume is viable.
 	    
 	    // Initialize to random variables.
-	    for (int i = CC.EXE_SIZE_MAX; i < GENOME_SIZE_MAX; i++)
-	    	this.genome[i] = RAND.nextInt(CC.MAX_VAR);
+	    for (int v = 0; v < Variable.NUM_VARS; v++)
+	    	genome.setVariable(v, this.rng.nextInt(this.id, CC.MAX_VAR));
+	    genome.actuatorsOff();
+	    this.setGenome(genome.toGenome(), null, null);
 	    
 	    this.reset();
 	}
@@ -120,25 +94,22 @@ public class Biolume {
 	 */
 	public void step() {
 		
-		alt_step = !alt_step;
+		this.store.alt_step[this.id] = !this.store.alt_step[this.id];
 		
 		// If this Biolume is reproducing do not execute any instructions.
-		if (this.repro_countdown > 0) {
-			this.repro_countdown--;
+		if (this.store.repro_countdown[this.id] > 0) {
+			this.store.repro_countdown[this.id]--;
 			return;
 		}
 		
 		// Pay the energy cost of execution.
-		this.addEnergy(-1.0 * CC.ENERGY_DECAY); 
+		this.addEnergy(-1.0 * this.cfg.energy_decay); 
 		
 		// execute the current instruction
-		Instruction.values()[this.genome[this.pc]].execute(this);
-			
-		// update sensors
-		for (int i = 0; i < CC.NUM_SENSORS; i++)
-			if (this.sensor_countdowns[i] != 0) this.sensor_countdowns[i]--;
+		Interpreter.execute(this, this.store.genome[this.id].code[this.store.pc[this.id]]);
 		
-		this.age++;	// advance this Biolume's age
+		// Advancing the age also ages every sensor detection (see sensorCountdown()).
+		this.store.age[this.id]++;	// advance this Biolume's age
 		incPC(); // increment the program counter	
 	}
 	
@@ -148,7 +119,7 @@ public class Biolume {
      * instruction in the genome. 
      */
 	public void incPC() {
-		this.pc = (this.pc + 1) % this.exe_size;
+		this.store.pc[this.id] = (this.store.pc[this.id] + 1) % this.store.genome[this.id].code.length;
 	}
 	
     /**
@@ -158,7 +129,7 @@ public class Biolume {
      * the next instruction.
      */
 	public void setLabel() {
-		this.label = this.pc;
+		this.store.label[this.id] = this.store.pc[this.id];
 	}
 	
     /**
@@ -167,90 +138,82 @@ public class Biolume {
      * instruction in the genome. 
      */
 	public void jumpToLabel() {
-		this.pc = this.label; 
+		this.store.pc[this.id] = this.store.label[this.id]; 
 	}
 	
 	/**
 	 * This method resets this Biolume's state information, message/display
-	 * buffers, sensors, timers, and turns all actuators off.   
+	 * buffers, sensors, timers, and turns all actuators off (the state
+	 * variables of the genome are turned off by its callers, as the genome
+	 * is built).
+	 * - The message buffer is cleared by recording the message clock: only
+	 * messages sent after the birth are received. The outbox is kept, since
+	 * the neighbors may still have to receive the last message sent from it.
 	 */
 	private void reset() {
 	    
 	    // Initialize state information.
-	    this.pc = 0;
-	    this.label = -1;
-	    this.age = 0;
-	    this.energy = 0;
-	    this.repro_countdown = 0;
-	    this.is_offspring = true;
+	    this.store.pc[this.id] = 0;
+	    this.store.label[this.id] = -1;
+	    this.store.age[this.id] = 0;
+	    this.store.energy[this.id] = 0;
+	    this.store.repro_countdown[this.id] = 0;
+	    this.store.is_offspring[this.id] = true;
 	    
 	    // Clear message/display buffers.
+	    this.store.born_at[this.id] = this.sim.getMessageClock();
 	    for (int i = 0; i < Variable.NUM_VARS; i++) {
-	    	this.message_buffer[i] = 0;
-	    	this.display_current[i] = 0;
-	    	this.display_previous[i] = 0;
-	    	this.display_buffer[i] = 0;
+	    	this.store.display_current[this.d + i] = 0;
+	    	this.store.display_previous[this.d + i] = 0;
+	    	this.store.display_buffer[this.d + i] = 0;
 	    }
 	    
 	    // Clear out sensors. 
 	    for (int i = 0; i < CC.NUM_SENSORS; i++)
-	    	this.sensor_countdowns[i] = 0;
-	    
-	    // Turn off all actuators. 
-        genome[CC.EXE_SIZE_MAX + Variable.LED0_STATE.ordinal()] = CC.OFF;
-        genome[CC.EXE_SIZE_MAX + Variable.LED1_STATE.ordinal()] = CC.OFF;
-        genome[CC.EXE_SIZE_MAX + Variable.SPEAKER_STATE.ordinal()] = CC.OFF;
+	    	this.store.sensor_fired_at[this.s + i] = PopulationStore.NEVER_FIRED;
 	}
 	
-	/**************************************************************************
-	 * Biolume Simulation methods.
+	/**
+	 * This method replaces the genome carried by this Biolume, keeping the
+	 * genotype registry up to date. The registry's canonical copy of the
+	 * genome is stored.
+	 * @param genome:	The new genome.
+	 * @param parent:	The genome it was inherited from (null if none).
+	 * @param mutations:	The editor that produced it from the parent's
+	 * (null if parent is null).
 	 */
+	private void setGenome(Genome genome, Genome parent, Genome.Editor mutations) {
+		this.store.genome[this.id] = this.store.genotypes.replace(this.store.genome[this.id], genome,
+				parent, mutations, this.sim.getSteps());
+	}
 	
 	/**
-	 * Update the Processing display for this Biolume. 
+	 * This method replaces the executable genome of this Biolume and restarts
+	 * it as a newborn (first instruction, blank display, age 0). It is
+	 * package-private and only meant for tools such as benchmarks that need a
+	 * known program.
+	 * @param program:	The new executable genome (opcodes). Its length must be
+	 * within [CC.EXE_SIZE_MIN, CC.EXE_SIZE_MAX].
 	 */
-	public void display() {
-		
-		String id; 
-		
-		// Draw the Biolume silhouette. 
-		this.sim.fill(0, 0, 0);
-		this.sim.rect(this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP, CC.B_WIDTH, CC.B_HEIGHT);
-		
-		if (this.isReproducing()) { // Draw the reproduction cycle & countdown.
-			
-			this.sim.image(Simulator.repro, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP, CC.B_WIDTH, CC.B_HEIGHT);
-			this.sim.fill(0, 0, CC.MAX_VAR);
-			if (this.is_offspring) id = "c"; else id = "p";
-			this.sim.text(this.repro_countdown + "(" + id + ")", this.location.x * Simulator.X_DISP + 14, this.location.y * Simulator.Y_DISP + 30);
-		}
-		else { // Draw the Biolume LEDs, speaker state, and battery. 
-			
-			// Draw LED0. 
-			this.sim.fill(this.display_current[0], this.display_current[1], this.display_current[2]);
-			this.sim.rect(this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP, CC.B_WIDTH/2, CC.B_HEIGHT);
-			
-			// Draw LED1. 
-			this.sim.fill(this.display_current[4], this.display_current[5], this.display_current[6]);
-			this.sim.rect(this.location.x  * Simulator.X_DISP+CC.B_WIDTH/2, this.location.y * Simulator.Y_DISP, CC.B_WIDTH/2, CC.B_HEIGHT);
-			
-			// Draw speaker status. 
-			if (speakerIsOn()) this.sim.image(Simulator.sound, this.location.x * Simulator.X_DISP + CC.B_WIDTH/4, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT/8);
-			
-			// Draw energy. 
-			if (this.getEnergy() <= 0)
-				this.sim.image(Simulator.battery0, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT *9/16);
-			else if (this.getEnergy() <= 0.25 * CC.ENERGY_MAX)
-				this.sim.image(Simulator.battery1, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT *9/16);
-			else if (this.getEnergy() <= 0.5 * CC.ENERGY_MAX)
-				this.sim.image(Simulator.battery2, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT *9/16);
-			else if (this.getEnergy() <= 0.75 * CC.ENERGY_MAX)
-				this.sim.image(Simulator.battery3, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT *9/16);
-			else // this.get_energy() <= 1.0 * Instruction.ENERGY_MAX)
-				this.sim.image(Simulator.battery4, this.location.x * Simulator.X_DISP, this.location.y * Simulator.Y_DISP + CC.B_HEIGHT *9/16);
-		}
+	void loadProgram(int[] program) {
+		this.loadGenome(program, this.store.genome[this.id].vars);
 	}
-    
+	
+	/**
+	 * This method replaces the whole genome of this Biolume (see
+	 * loadProgram()).
+	 * @param program:	The new executable genome (opcodes).
+	 * @param vars:	The new variables (Variable.NUM_VARS of them).
+	 */
+	void loadGenome(int[] program, int[] vars) {
+		if (program.length < CC.EXE_SIZE_MIN || program.length > CC.EXE_SIZE_MAX)
+			throw new IllegalArgumentException("Program length out of range: " + program.length);
+		if (vars.length != Variable.NUM_VARS)
+			throw new IllegalArgumentException("Wrong amount of variables: " + vars.length);
+		this.setGenome(new Genome(program.clone(), vars.clone()), null, null);
+		this.reset();
+	}
+	
 	/**************************************************************************
 	 * Getter methods.
 	 */
@@ -261,7 +224,61 @@ public class Biolume {
      * @return:	This Biolume's age.
      */
     public int getAge() {
-    	return this.age;
+    	return this.store.age[this.id];
+    }
+	
+    /**
+     * This method draws a double in [0, 1) from this Biolume's random stream.
+     * @return:	A uniformly distributed double in [0, 1).
+     */
+    public double nextRandom() {
+    	return this.rng.nextDouble(this.id);
+    }
+    
+    /**
+     * @return:	The configuration of the simulation this Biolume belongs to.
+     */
+    public SimConfig getConfig() {
+    	return this.cfg;
+    }
+    
+    /**
+     * @return:	The cell id of this Biolume within its population store.
+     */
+    public int getId() {
+    	return this.id;
+    }
+    
+    /**
+     * @return:	The x coordinate of this Biolume.
+     */
+    public int getX() {
+    	return this.id / this.cfg.y_size;
+    }
+    
+    /**
+     * @return:	The y coordinate of this Biolume.
+     */
+    public int getY() {
+    	return this.id % this.cfg.y_size;
+    }
+    
+    /**
+     * This method returns the amount of steps left in this Biolume's
+     * reproduction process.
+     * @return:	The reproduction countdown (0 if not reproducing).
+     */
+    public int getReproCountdown() {
+    	return this.store.repro_countdown[this.id];
+    }
+    
+    /**
+     * This method returns whether this Biolume was born as an offspring, as
+     * opposed to being the parent, in its latest reproduction process.
+     * @return:	True if this Biolume is an offspring, false if otherwise.
+     */
+    public boolean isOffspring() {
+    	return this.store.is_offspring[this.id];
     }
 	
     /**
@@ -270,9 +287,10 @@ public class Biolume {
      * @return:	An array containing the instructions in this Biolume's genome.
      */
 	public String [] getGenome() {
-		String [] g = new String[this.exe_size];
-		for (int i = 0; i < this.exe_size; i++)
-			g[i] = Instruction.values()[this.genome[i]].toString();
+		Genome genome = this.store.genome[this.id];
+		String [] g = new String[genome.size()];
+		for (int i = 0; i < g.length; i++)
+			g[i] = Instruction.fromOpcode(genome.opcode(i)).toString();
 		return g;
 	}
     
@@ -285,11 +303,7 @@ public class Biolume {
 	 * index and state for this Biolume.
 	 */
     public int[] getVariables() {
-    	int[] vars = new int[Variable.NUM_VARS];
-    	for (int i = 0; i < Variable.NUM_VARS; i++) {
-    		vars[i] = this.genome[i + CC.EXE_SIZE_MAX];
-    	}
-    	return vars;
+    	return this.store.genome[this.id].vars.clone();
     }
     
 	/**
@@ -299,9 +313,9 @@ public class Biolume {
 	 */
 	public float [] getLED0Color() {
 	    float [] hsb = new float [3];
-	    hsb [0] = this.display_current[Variable.LED0_H.ordinal()];
-	    hsb [1] = this.display_current[Variable.LED0_S.ordinal()];
-	    hsb [2] = this.display_current[Variable.LED0_B.ordinal()];    
+	    hsb [0] = this.store.display_current[this.d + Variable.LED0_H.ordinal()];
+	    hsb [1] = this.store.display_current[this.d + Variable.LED0_S.ordinal()];
+	    hsb [2] = this.store.display_current[this.d + Variable.LED0_B.ordinal()];    
 	    return hsb;
 	}
 	
@@ -312,9 +326,9 @@ public class Biolume {
 	 */
 	public float [] getLED1Color() {
 	    float [] hsb = new float [3];
-	    hsb [0] = this.display_current[Variable.LED1_H.ordinal()];
-	    hsb [1] = this.display_current[Variable.LED1_S.ordinal()];
-	    hsb [2] = this.display_current[Variable.LED1_B.ordinal()];    
+	    hsb [0] = this.store.display_current[this.d + Variable.LED1_H.ordinal()];
+	    hsb [1] = this.store.display_current[this.d + Variable.LED1_S.ordinal()];
+	    hsb [2] = this.store.display_current[this.d + Variable.LED1_B.ordinal()];    
 	    return hsb;
 	}
 	
@@ -323,7 +337,7 @@ public class Biolume {
 	 * @return: True if LED0 is on, false if otherwise.
 	 */
 	public boolean LED0IsOn() {
-		return this.display_current[Variable.LED0_STATE.ordinal()] == CC.ON;
+		return this.store.display_current[this.d + Variable.LED0_STATE.ordinal()] == CC.ON;
 	}
 	
 	/**
@@ -331,7 +345,7 @@ public class Biolume {
 	 * @return:	True if LED1 is on, false if otherwise.
 	 */
 	public boolean LED1IsOn() {
-		return this.display_current[Variable.LED1_STATE.ordinal()] == CC.ON;
+		return this.store.display_current[this.d + Variable.LED1_STATE.ordinal()] == CC.ON;
 	}
 	
 	/**
@@ -339,7 +353,7 @@ public class Biolume {
 	 * @return:	True if the speaker is on, false if otherwise. 
 	 */
 	public boolean speakerIsOn() {
-		if (this.display_current[Variable.SPEAKER_STATE.ordinal()] == CC.ON) return true;
+		if (this.store.display_current[this.d + Variable.SPEAKER_STATE.ordinal()] == CC.ON) return true;
 		else return false;
 	}
 	
@@ -355,13 +369,13 @@ public class Biolume {
      */
     public void setDisplay(int[] display_vals) {
     	
-    	for (int i = 0; i < this.display_current.length; i++) {
+    	for (int i = 0; i < Variable.NUM_VARS; i++) {
     		
     		// first save the current display
-    		this.display_previous[i] = this.display_current[i];
+    		this.store.display_previous[this.d + i] = this.store.display_current[this.d + i];
     		
     		// then update the display buffer
-    		this.display_current[i] = display_vals[i];
+    		this.store.display_current[this.d + i] = display_vals[i];
     	}
 
     }
@@ -373,7 +387,7 @@ public class Biolume {
      * @return:	The current values being displayed.
      */
     public int[] getDisplay() {
-    	return this.display_current.clone();
+    	return Arrays.copyOfRange(this.store.display_current, this.d, this.d + Variable.NUM_VARS);
     }
     
     /**
@@ -383,33 +397,105 @@ public class Biolume {
      * @return: the previous values being displayed
      */
     public int[] getPreviousDisplay() {
-    	return this.display_previous.clone();
+    	return Arrays.copyOfRange(this.store.display_previous, this.d, this.d + Variable.NUM_VARS);
     }
     
     /**
-     * This method places the contents of a message buffer into the display
-     * buffer. A message includes the HSB values and state for 2 LEDs, as well
-     * as a speaker index to a MIDI file and the speaker state.
+     * These methods turn an actuator on (displaying its values from this
+     * Biolume's variables) or off (displaying zeros). Like setDisplay(), the
+     * current display is saved as the previous display first, but the store
+     * is updated in place, so nothing is allocated.
+     * @param on:	True to turn the actuator on, false to turn it off.
      */
-    public void messageToBuffer() {
-    	
-    	for (int i = 0; i < this.display_buffer.length; i++) {
-    		this.display_buffer[i] = this.message_buffer[i];
-    	}
+    public void setLED0(boolean on) {
+    	this.setActuator(Variable.LED0_H.ordinal(), Variable.LED0_STATE.ordinal(), on);
+    }
+    
+    public void setLED1(boolean on) {
+    	this.setActuator(Variable.LED1_H.ordinal(), Variable.LED1_STATE.ordinal(), on);
+    }
+    
+    public void setSpeaker(boolean on) {
+    	this.setActuator(Variable.SPEAKER.ordinal(), Variable.SPEAKER_STATE.ordinal(), on);
+    }
+    
+    /**
+     * These methods toggle an LED back to its previous values and state. The
+     * rest of the display is unchanged, and the current display is saved as
+     * the previous display, in place.
+     */
+    public void toggleLED0() {
+    	this.toggleActuator(Variable.LED0_H.ordinal(), Variable.LED0_STATE.ordinal());
+    }
+    
+    public void toggleLED1() {
+    	this.toggleActuator(Variable.LED1_H.ordinal(), Variable.LED1_STATE.ordinal());
+    }
+    
+    /**
+     * This method sets the display values of one actuator. The values of an
+     * actuator are the display variables from first up to (and including) its
+     * state variable.
+     * @param first:	The first display variable of the actuator.
+     * @param state:	The state variable of the actuator.
+     * @param on:	True to turn the actuator on, false to turn it off.
+     */
+    private void setActuator(int first, int state, boolean on) {
+    	setActuator(this.store.display_current, this.store.display_previous, this.d,
+    			this.store.genome[this.id].vars, first, state, on);
+    }
+    
+    /**
+     * This method restores the previous display values of one actuator, while
+     * the whole current display becomes the previous display.
+     * @param first:	The first display variable of the actuator.
+     * @param state:	The state variable of the actuator.
+     */
+    private void toggleActuator(int first, int state) {
+    	toggleActuator(this.store.display_current, this.store.display_previous, this.d, first, state);
     }
     
     /**
-     * This method places the contents of the display buffer into the a message
-     * buffer. This includes the HSB values and state for 2 LEDs, as well as a
-     * speaker index to a MIDI file and the speaker state.
+     * These methods do the same on the display starting at offset d of the
+     * given arrays, so the display of a genome can also be replayed away
+     * from the store (see DisplayCycle.java).
+     * @param current:	The current displays.
+     * @param previous:	The previous displays.
+     * @param d:	The offset of the display.
+     * @param vars:	The variables of the genome.
      */
-    public void bufferToMessage() {
+    static void setActuator(int[] current, int[] previous, int d, int[] vars, int first, int state, boolean on) {
+    	
+    	// first save the current display
+    	System.arraycopy(current, d, previous, d, Variable.NUM_VARS);
+    	
+    	// then update the actuator's values
+    	for (int i = first; i < state; i++)
+    		current[d + i] = on ? vars[i] : CC.OFF;
+    	current[d + state] = on ? CC.ON : CC.OFF;
+    }
+    
+    static void toggleActuator(int[] current, int[] previous, int d, int first, int state) {
     	
-    	for (int i = 0; i < this.message_buffer.length; i++) {
-    		this.message_buffer[i] = this.display_buffer[i];
+    	for (int i = d; i < d + Variable.NUM_VARS; i++) {
+    		int shown = current[i];
+    		if (i >= d + first && i <= d + state) current[i] = previous[i];
+    		previous[i] = shown;
     	}
     }
     
+    /**
+     * This method places the contents of a message buffer into the display
+     * buffer. A message includes the HSB values and state for 2 LEDs, as well
+     * as a speaker index to a MIDI file and the speaker state.
+     * - The message buffer holds the most recent message sent by a neighbor
+     * since this Biolume was born (all zeros if none). It is not stored, but
+     * pulled from the neighbors' outboxes here.
+     */
+    public void messageToBuffer() {
+    	this.sim.receiveMessage(this.id, this.store.display_buffer, this.d);
+    }
+    
     /**
      * This method places the contents of the current outward display into the
      * display buffer. This includes the HSB values and state for the LEDs, as
@@ -417,8 +503,8 @@ public class Biolume {
      */
 	public void displayToBuffer() {
 		
-		for (int i = 0; i < this.display_buffer.length; i++) {
-			this.display_buffer[i] = this.display_current[i];
+		for (int i = 0; i < Variable.NUM_VARS; i++) {
+			this.store.display_buffer[this.d + i] = this.store.display_current[this.d + i];
 		}
 	}
 
@@ -429,31 +515,20 @@ public class Biolume {
      */
 	public void bufferToDisplay() {
 		
-		for (int i = 0; i < this.display_current.length; i++) {
-			this.display_current[i] = this.display_buffer[i];
+		for (int i = 0; i < Variable.NUM_VARS; i++) {
+			this.store.display_current[this.d + i] = this.store.display_buffer[this.d + i];
 		}
 	}
 
-	/**
-	 * This method places a message in the message buffer. The message includes
-	 * the HSB values and state for both LEDs, the speaker index to a MIDI
-	 * file, and the speaker state.
-	 * @param new_message:	The message that is placed into the message buffer.
-	 */
-	public void setMessage(int[] new_message) {
-		
-		for (int i = 0; i < this.message_buffer.length; i++) {
-			this.message_buffer[i] = new_message[i];
-		}
-	}
-	
 	/**
 	 * This method broadcasts the current message to all neighbors. The message
 	 * includes the HSB values and state for both LEDs, the speaker index to a
 	 * MIDI file, and the speaker state.
+	 * - The message is published in this Biolume's outbox only; neighbors
+	 * read it when they retrieve a message.
 	 */
 	public void broadcastNeighborhood() {
-		this.sim.localBroadcast(this.location, this.message_buffer.clone());		
+		this.sim.localBroadcast(this.id);
 	}
 	
 	/**************************************************************************
@@ -468,7 +543,7 @@ public class Biolume {
      * false if otherwise. 
      */
     public boolean isReproducing() {
-    	return (this.repro_countdown > 0);
+    	return (this.store.repro_countdown[this.id] > 0);
     }
     
     /**
@@ -478,38 +553,46 @@ public class Biolume {
      * to the offspring and the parent's reproduction countdown is started.
      */
     public void parentReproduce() {
-    	this.sim.reproduceBiolume(this.location, this.genome, this.exe_size, this.alt_step);
-    	this.repro_countdown = CC.REPRO_COUNTDOWN;
-    	this.is_offspring = false;
+    	this.sim.reproduceBiolume(this.id, this.store.alt_step[this.id]);
+    	this.store.repro_countdown[this.id] = this.cfg.repro_countdown;
+    	this.store.is_offspring[this.id] = false;
 	}
     
 	/**
 	 * This method replaces this Biolume with a newborn offspring. First, all
 	 * parameters are reset. Next, the genome is replaced with the parent's and
 	 * exposed to mutations. If the mutations would render this Biolume
-	 * sterile, it is made (potentially) fertile.
-	 * @param new_genome:	The parent's genome.
-	 * @param new_exe_size:	The parent's number of executable instructions.
+	 * sterile, it is made (potentially) fertile. The mutations draw from the
+	 * parent's random stream, since the parent is the Biolume being stepped.
+	 * The offspring shares the parent's (immutable) genome, and only gets a
+	 * copy of its own if a mutation or turning the actuators off actually
+	 * changes it.
+	 * @param parent:	The parent's cell id.
 	 * @param p_odd_step: Checksum to sync reproduction countdowns. 
 	 */
-	public void offspringReproduce(int[] new_genome, int new_exe_size, boolean p_odd_step) {
-	
-		// Copy the executable genome.
-	    this.exe_size = new_exe_size;
-	    for (int i = 0; i < this.exe_size; i++) this.genome[i] = new_genome[i];
-	    
-	    // Copy the variables.
-	    for (int i = CC.EXE_SIZE_MAX; i < GENOME_SIZE_MAX; i++) this.genome[i] = new_genome[i];
+	public void offspringReproduce(int parent, boolean p_odd_step) {
+		
+		// Inherit the genome (executable genome and variables), with the
+		// actuators off, and expose it to mutations.
+		Genome.Editor genome = new Genome.Editor(this.store.genome[parent]);
+		genome.actuatorsOff();
+		this.mutate(genome, parent);
+		if (this.sim.defersBirths()) { // Registered after the colour class.
+			Genome born = genome.toGenome();
+			this.store.genotypes.defer(parent, this.id, this.store.genome[this.id], born, this.store.genome[parent],
+					genome, this.sim.getSteps());
+			this.store.genome[this.id] = born;
+		}
+		else this.setGenome(genome.toGenome(), this.store.genome[parent], genome);
 		
-	    // Reset the state, and expose to mutations.
+	    // Reset the state.
 	    this.reset(); 
-		this.mutate(); 
 		
 		// Set the reproduction count.
-		if ( (p_odd_step && this.alt_step) || 
-				(!p_odd_step && !this.alt_step) ) // Child already executed.
-			this.repro_countdown = CC.REPRO_COUNTDOWN;
-		else this.repro_countdown = CC.REPRO_COUNTDOWN + 1;
+		if ( (p_odd_step && this.store.alt_step[this.id]) || 
+				(!p_odd_step && !this.store.alt_step[this.id]) ) // Child already executed.
+			this.store.repro_countdown[this.id] = this.cfg.repro_countdown;
+		else this.store.repro_countdown[this.id] = this.cfg.repro_countdown + 1;
 	}
 	
 	/**
@@ -523,79 +606,52 @@ public class Biolume {
 	 * Biolume's variables (LED0 and LED1 HSB values and the speaker index
 	 * value) are exposed to mutations. They are only affected by the copy 
 	 * mutation rate. 
+	 * @param genome:	The genome being mutated.
+	 * @param stream:	The random stream to draw from.
 	 */
-	private void mutate() {
+	private void mutate(Genome.Editor genome, int stream) {
 	
 		// Deletion mutation (do not go below minimum instruction count).
-		if (RAND.nextDouble() < CC.MUT_PROB_DELETE && this.exe_size > CC.EXE_SIZE_MIN) {
+		if (this.rng.nextDouble(stream) < this.cfg.mut_prob_delete && genome.size() > CC.EXE_SIZE_MIN) {
 			
-			// Get deletion location.
-			int index = RAND.nextInt(this.exe_size);
-			
-			// Shift up.
-			this.exe_size--;
-			for (int i = index; i < this.exe_size; i++) {
-				this.genome[i] = this.genome[i+1];
-			}
+			// Get deletion location, and shift up.
+			genome.delete(this.rng.nextInt(stream, genome.size()));
 		}
 		
-		// Copy mutations.
-		for (int i = 0; i < this.exe_size; i++) 
-			if (RAND.nextDouble() < CC.MUT_PROB_COPY) 
+		// Copy mutations. The instructions followed by the variables are the
+		// mutation sites; rather than flipping a coin for every site, jump
+		// straight to the next mutated one (geometric gaps).
+		int size = genome.size();
+		int sites = size + Variable.NUM_VARS;
+		for (long i = this.rng.nextGeometric(stream, this.cfg.mut_prob_copy); i < sites;
+				i += 1L + this.rng.nextGeometric(stream, this.cfg.mut_prob_copy)) {
+			if (i < size) {
 				// Mutate to random instruction.
-				this.genome[i] = RAND.nextInt(Instruction.INST_SET_SIZE);
-		for (int i = CC.EXE_SIZE_MAX; i < GENOME_SIZE_MAX; i++)
-			if (RAND.nextDouble() < CC.MUT_PROB_COPY) {
-			    // add number from Gaussian
-			    this.genome[i] += (int)(RAND.nextGaussian() * 20);
-				
-			    if (i == (CC.EXE_SIZE_MAX + Variable.LED0_H.ordinal()) || 
-			    		i == (CC.EXE_SIZE_MAX + Variable.LED1_H.ordinal()) ) { // Hues
-			    	// Stay in the correct range accounting for wraparound.
-					this.genome[i] %= CC.MAX_VAR;
-					if (this.genome[i] < 0) this.genome[i] += CC.MAX_VAR;
-				}
-			    else { // Saturation or Brightness.
-					if (this.genome[i] > CC.MAX_VAR) this.genome[i] = CC.MAX_VAR;
-					else if (this.genome[i] < 0) this.genome[i] = 0;
-			    }
+				genome.setOpcode((int) i, this.rng.nextInt(stream, Instruction.INST_SET_SIZE));
+				continue;
+			}
+			
+		    // add number from Gaussian
+			int v = (int) i - size;
+		    int value = genome.variable(v) + (int)(this.rng.nextGaussian(stream) * 20);
+			
+		    if (v == Variable.LED0_H.ordinal() || v == Variable.LED1_H.ordinal()) { // Hues
+		    	// Stay in the correct range accounting for wraparound.
+				value %= CC.MAX_VAR;
+				if (value < 0) value += CC.MAX_VAR;
 			}
+		    else { // Saturation or Brightness.
+				if (value > CC.MAX_VAR) value = CC.MAX_VAR;
+				else if (value < 0) value = 0;
+		    }
+		    genome.setVariable(v, value);
+		}
 	
 		// Insertion mutation.
-		if (RAND.nextDouble() < CC.MUT_PROB_INSERT)
-			this.insertMutation(RAND.nextInt(this.exe_size), RAND.nextInt(Instruction.INST_SET_SIZE));
-		
-		this.makeViable();
-	}
-	
-	/**
-	 * This method attempts to insert the given instruction into the given
-	 * position in the executable genome space of this Biolume. If the
-	 * insertion would overflow the genome space (the new genome size would be
-	 * greater than CC.EXE_SIZE_MAX), then the insertion fails. Otherwise, the
-	 * insertion is successful. 
-	 * @param index:	The target position for the insertion. 
-	 * @param instruction:	The instruction to be inserted.
-	 * @return:	True if the insertion was successful, false if otherwise. 
-	 */
-	private boolean insertMutation(int index, int instruction) {
-		
-		if (this.exe_size >= CC.EXE_SIZE_MAX) return false;
+		if (this.rng.nextDouble(stream) < this.cfg.mut_prob_insert)
+			genome.insert(this.rng.nextInt(stream, genome.size()), this.rng.nextInt(stream, Instruction.INST_SET_SIZE));
 		
-		this.exe_size++;
-		
-		// insert
-		int swap1 = this.genome[index];
-		this.genome[index] = instruction;
-		
-		// shift instructions down
-		for (int i = index+1; i < this.exe_size; i++) {
-			int swap2 = this.genome[i];
-			this.genome[i] = swap1;
-			swap1 = swap2;
-		}
-		
-		return true;
+		this.makeViable(genome, stream);
 	}
 
 	/** This method checks if the genome has at least one instance of the REPRO
@@ -603,19 +659,21 @@ public class Biolume {
 	 * CC.EXE_SIZE_MAX, a REPRO is inserted into a random location in the
 	 * genome. If the length is equal to the maximum size, a random instruction
 	 * is replaced by the REPRO. 
+	 * @param genome:	The genome being built or mutated.
+	 * @param stream:	The random stream to draw from.
 	 */
-	private void makeViable() {
+	private void makeViable(Genome.Editor genome, int stream) {
 		
 		// Check if this Biolume is already viable. If so, escape. 
-		for (int i = 0; i < this.exe_size; i++)
-			if (this.genome[i] == Instruction.REPRODUCE.ordinal()) return;
+		for (int i = 0; i < genome.size(); i++)
+			if (genome.opcode(i) == Instruction.REPRODUCE.ordinal()) return;
 		
 		// We're still here, so this Biolume is not viable. 
-		int insertIndex = RAND.nextInt(this.exe_size);
+		int insertIndex = this.rng.nextInt(stream, genome.size());
 		
 		// Attempt insertion mutation. If it fails, perform a point mutation. 
-		if (!this.insertMutation(insertIndex, Instruction.REPRODUCE.ordinal()))
-			this.genome[insertIndex] = Instruction.REPRODUCE.ordinal();
+		if (!genome.insert(insertIndex, Instruction.REPRODUCE.ordinal()))
+			genome.setOpcode(insertIndex, Instruction.REPRODUCE.ordinal());
 	}	
 	
 	/**************************************************************************
@@ -629,9 +687,9 @@ public class Biolume {
 	 * @param energy:	The energy supplied to this Biolume. 
 	 */
 	public void setEnergy(double energy) {
-		this.energy = energy;
-		if (this.energy > CC.ENERGY_MAX) this.energy = CC.ENERGY_MAX;
-		if (this.energy < 0) this.energy = 0;
+		this.store.energy[this.id] = energy;
+		if (this.store.energy[this.id] > this.cfg.energy_max) this.store.energy[this.id] = this.cfg.energy_max;
+		if (this.store.energy[this.id] < 0) this.store.energy[this.id] = 0;
 	}
 	
 	/**
@@ -642,16 +700,16 @@ public class Biolume {
 	 * energy reserve. 
 	 */
 	private void addEnergy(double addition) {
-		this.energy += addition;
-		if (this.energy > CC.ENERGY_MAX) this.energy = CC.ENERGY_MAX;
-		if (this.energy < 0) this.energy = 0;
+		this.store.energy[this.id] += addition;
+		if (this.store.energy[this.id] > this.cfg.energy_max) this.store.energy[this.id] = this.cfg.energy_max;
+		if (this.store.energy[this.id] < 0) this.store.energy[this.id] = 0;
 	}
 	
 	/**
      * @return:	The energy acquired by this Biolume. 
      */
     public double getEnergy() {
-		return energy;
+		return this.store.energy[this.id];
 	}
 	
 	/**************************************************************************
@@ -670,22 +728,22 @@ public class Biolume {
 	 */
 	public void setDetection(int sensor_type) {
 		if (sensor_type == CC.TOUCH && !this.getDetection(CC.TOUCH, CC.SHORT)) {
-			this.addEnergy(CC.TOUCH_ENERGY);
-			this.sensor_countdowns[CC.TOUCH] = CC.LONG_TERM_DURATION;
+			this.addEnergy(this.cfg.touch_energy);
+			this.store.sensor_fired_at[this.s + CC.TOUCH] = this.store.age[this.id];
 		}
 		else if (sensor_type == CC.MOTION && !this.getDetection(CC.MOTION, CC.SHORT)) {
-			this.addEnergy(CC.MOTION_ENERGY);
-			this.sensor_countdowns[CC.MOTION] = CC.LONG_TERM_DURATION;
+			this.addEnergy(this.cfg.motion_energy);
+			this.store.sensor_fired_at[this.s + CC.MOTION] = this.store.age[this.id];
 		}
 		else if (sensor_type == CC.SOUND) {
-			if (this.sensor_countdowns[CC.SOUND] < CC.LONG_TERM_DURATION - CC.NEW_SOUND_DELAY) 
-					this.addEnergy(CC.NEW_SOUND_ENERGY);
-			else this.addEnergy(CC.NORMAL_SOUND_ENERGY); // multiple sounds make more "loudness"
-			this.sensor_countdowns[CC.SOUND] = CC.LONG_TERM_DURATION;
+			if (this.sensorCountdown(CC.SOUND) < this.cfg.long_term_duration - this.cfg.new_sound_delay) 
+					this.addEnergy(this.cfg.new_sound_energy);
+			else this.addEnergy(this.cfg.normal_sound_energy); // multiple sounds make more "loudness"
+			this.store.sensor_fired_at[this.s + CC.SOUND] = this.store.age[this.id];
 		}
 		else if (sensor_type == CC.CO2 && !this.getDetection(CC.CO2, CC.SHORT)) {
-			this.addEnergy(CC.CO2_ENERGY);
-			this.sensor_countdowns[CC.CO2] = CC.LONG_TERM_DURATION;
+			this.addEnergy(this.cfg.co2_energy);
+			this.store.sensor_fired_at[this.s + CC.CO2] = this.store.age[this.id];
 		}
 	}
 	
@@ -703,9 +761,26 @@ public class Biolume {
 	public boolean getDetection(int sensor_type, int term) {
 		
 		if(term == CC.SHORT)
-			return (this.sensor_countdowns[sensor_type] == CC.LONG_TERM_DURATION);
+			return (this.store.sensor_fired_at[this.s + sensor_type] == this.store.age[this.id]);
 		// if (term == CC.LONG) // no other options are acceptable.
-			return (this.sensor_countdowns[sensor_type] != 0);
+			return (this.sensorCountdown(sensor_type) != 0);
+	}
+	
+	/**
+	 * This method returns how many more executed steps a sensor detection
+	 * will be remembered for. Detections are stored as this Biolume's age when
+	 * the sensor fired; since the age advances exactly once per executed step,
+	 * the countdown is derived by subtraction instead of being decremented by
+	 * every step.
+	 * @param sensor_type:	The requested sensor.
+	 * @return:	CC.LONG_TERM_DURATION right after a detection, down to 0 once
+	 * the detection is forgotten (or if the sensor never fired).
+	 */
+	private int sensorCountdown(int sensor_type) {
+		int fired_at = this.store.sensor_fired_at[this.s + sensor_type];
+		if (fired_at == PopulationStore.NEVER_FIRED) return 0;
+		int countdown = this.cfg.long_term_duration - (this.store.age[this.id] - fired_at);
+		return (countdown > 0) ? countdown : 0;
 	}
 
 }
\ No newline at end of file
@@ -3,11 +3,10 @@
  * @authors: Daniel J. Couvertier
  * @date: August 12, 2011
  * @description: This file contains all user-defined constant values.
- * - For now, only developers will be tampering with configurations, so this
- * file should suffice. In the future, should the purpose of the simulator
- * shift to outreach or demonstrations in which non-developers would be 
- * altering the parameters, an external configuration file may be created and 
- * used instead. 
+ * - The simulation parameters below are the defaults of SimConfig, which
+ * can override them at run time from a properties file or the command line
+ * (see SimConfig.java). Genome sizes, MAX_VAR and the GUI dimensions are
+ * only set here.
  * - Constants which should/can not be altered by the user are contained 
  * within more appropriate files.
  * - The 'Enumerations' sections are placed here simply as a point of 
@@ -31,6 +30,11 @@ public class CC {
 	public static final int B_HEIGHT = 50;
 	public static final int GUTTER = 10;
 	
+	// Largest arena view (whole Biolumes at full detail). Larger populations
+	// are zoomed out and panned (see Simulator.keyPressed()).
+	public static final int MAX_VIEW_WIDTH = 16 * (B_WIDTH + GUTTER);
+	public static final int MAX_VIEW_HEIGHT = 12 * (B_HEIGHT + GUTTER);
+	
 	// Avatar dimensions.
 	public static final int AVATAR_SIZE = 32;
 	
@@ -50,6 +54,33 @@ public class CC {
 	// Make sure that (DEFAULT-1) % CHANGE = 0
 	public static final int STEP_DELAY_CHANGE = 100;
 	
+	// Steps per tick once sped up past a delay of 1 ms (unthrottled).
+	public static final int UNTHROTTLED_STEPS_PER_TICK = 100;
+
+	/**************************************************************************
+	 **************************************************************************
+	 ******************************** STEPPING ********************************
+	 **************************************************************************
+	 *************************************************************************/
+
+	// STEP MODES: How are the Biolumes of a population stepped?
+	// SERIAL = one thread, every cell in a random order.
+	// PARALLEL = colour classes in a random order, each class split across
+	// threads (see GridColoring.java and SimulationEngine.stepPopulation()).
+	public static final int SERIAL = 0;
+	public static final int PARALLEL = 1;
+
+	/************************** ^ ENUMERATIONS ^ *****************************/
+
+	// Default step mode. Options available in enumerations.
+	public static final int STEP_MODE = SERIAL;
+
+	// Threads used by the PARALLEL step mode (0 = one per available core).
+	public static final int STEP_THREADS = 0;
+
+	// Smallest amount of cells handed to a single parallel task.
+	public static final int STEP_GRAIN = 64;
+
 	/**************************************************************************
 	 **************************************************************************
 	 ********************************* GENOME *********************************
@@ -100,8 +131,9 @@ public class CC {
 	
 	// Mutation Rates (http://www.krl.caltech.edu/avida/manual/mutation.html)
 	public static final double MUT_PROB_COPY = (1.0 / EXE_SIZE_INIT);
-	public static final double MUT_PROB_INSERT = (MUT_PROB_COPY / 2.2);
-	public static final double MUT_PROB_DELETE = (MUT_PROB_COPY / 2.2);
+	public static final double MUT_INDEL_RATIO = 2.2;
+	public static final double MUT_PROB_INSERT = (MUT_PROB_COPY / MUT_INDEL_RATIO);
+	public static final double MUT_PROB_DELETE = (MUT_PROB_COPY / MUT_INDEL_RATIO);
 	
 	// Steps to skip while reproducing (for visualization purposes only).
 	public static final int REPRO_COUNTDOWN = 3;
@@ -158,4 +190,15 @@ public class CC {
 	public static final double MOTION_ENERGY = ENERGY_MAX * 0.10; 
 	public static final double TOUCH_ENERGY = ENERGY_MAX * 0.50;
 	public static final double ENERGY_DECAY = ENERGY_MAX * 0.01;
+	
+	// PRESSURE FITNESS: How is the fitness under the global pressures found?
+	// KERNEL = calculated for every Biolume (see PressureKernel.java).
+	// DISPLAY_CYCLES = looked up by genotype and age where the display
+	// trajectory is known (see DisplayCycle.java), calculated for the rest.
+	// Both give the same energies.
+	public static final int KERNEL = 0;
+	public static final int DISPLAY_CYCLES = 1;
+	
+	// Default pressure fitness. Options available above.
+	public static final int PRESSURE_FITNESS = KERNEL;
 }
@@ -0,0 +1,233 @@
+/**
+ * DisplayCycle.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the display trajectory of a genome: the
+ * display shown by a Biolume carrying it after every amount of executed
+ * instructions since its birth, and the fitness of those displays under the
+ * global color pressures (see SimulationEngine.globalColorPressure()).
+ * - Every Biolume is born in the same state (first instruction, no label,
+ * blank display). As long as the instructions it runs only read its genome,
+ * its pc, label and display are a function of its age alone (the amount of
+ * instructions executed, see Biolume.step()). There are finitely many such
+ * states, so the trajectory ends in a cycle. Sensor conditionals are taken
+ * as not detected: this holds for a Biolume that never had a detection
+ * (sensors never fire while a global pressure is on), which the engine
+ * checks before using the trajectory.
+ * - The trajectory is replayed from the birth state until a state repeats
+ * (the cycle is found), or up to an instruction that depends on the
+ * Biolume's history: BUFFER_GET_DATA (the buffer holds received messages)
+ * and the energy conditionals (the energy comes from the pressure). Then
+ * only the phases before it are known.
+ * - Genomes are interned, so a genotype's clones share its trajectory (see
+ * Genome.displayCycle()). The energy rewarded at each of its phases is only
+ * recalculated when the pressures change.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+public final class DisplayCycle {
+
+    /**************************************************************************
+     * Display cycle parameters.
+     */
+
+	// Most phases replayed while looking for the cycle.
+	static final int MAX_PHASES = 1024;
+
+	// Display after 0, 1, 2... executed instructions (stride Variable.NUM_VARS).
+	private final int[] displays;
+
+	// Amount of known phases, and length of the cycle they end with (0 if
+	// the trajectory stops at an instruction depending on history instead).
+	private final int phases;
+	private final int period;
+
+	// Energy rewarded at every phase by the global pressures, and the number
+	// of the pressure setting it was calculated for (see rewards()).
+	private double[] rewards;
+	private long rewards_setting = -1;
+
+	/**
+	 * The state of a Biolume replaying a genome: pc, label and displays.
+	 */
+	private static final class State {
+
+		private final int[] values;
+		private final int hash;
+
+		State(int pc, int label, int[] current, int[] previous) {
+			this.values = new int[2 + 2 * Variable.NUM_VARS];
+			this.values[0] = pc;
+			this.values[1] = label;
+			System.arraycopy(current, 0, this.values, 2, Variable.NUM_VARS);
+			System.arraycopy(previous, 0, this.values, 2 + Variable.NUM_VARS, Variable.NUM_VARS);
+			this.hash = Arrays.hashCode(this.values);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof State) && Arrays.equals(this.values, ((State) o).values);
+		}
+	}
+
+    /**************************************************************************
+     * Display cycle methods.
+     */
+
+	private DisplayCycle(int[] displays, int phases, int period) {
+		this.displays = displays;
+		this.phases = phases;
+		this.period = period;
+	}
+
+	/**
+	 * This method replays a genome from the birth state (see the description
+	 * above) to find its display trajectory.
+	 * @param genome:	The genome.
+	 * @return:	The display trajectory of the genome.
+	 */
+	static DisplayCycle of(Genome genome) {
+
+		int size = genome.code.length;
+		int[] current = new int[Variable.NUM_VARS];
+		int[] previous = new int[Variable.NUM_VARS];
+		int pc = 0, label = -1;
+
+		HashMap<State, Integer> seen = new HashMap<State, Integer>();
+		int[] displays = new int[16 * Variable.NUM_VARS];
+
+		for (int phase = 0; ; phase++) {
+
+			// Back to a state already seen: the cycle started there.
+			Integer start = seen.put(new State(pc, label, current, previous), phase);
+			if (start != null) return new DisplayCycle(displays, phase, phase - start);
+
+			if ((phase + 1) * Variable.NUM_VARS > displays.length)
+				displays = Arrays.copyOf(displays, 2 * displays.length);
+			System.arraycopy(current, 0, displays, phase * Variable.NUM_VARS, Variable.NUM_VARS);
+			if (phase + 1 == MAX_PHASES) return new DisplayCycle(displays, phase + 1, 0);
+
+			// Same effects as Interpreter.execute() on the display and pc.
+			switch (genome.code[pc]) {
+
+			case Interpreter.OP_LED0_ON:
+			case Interpreter.OP_LED0_OFF:
+				Biolume.setActuator(current, previous, 0, genome.vars, Variable.LED0_H.ordinal(),
+						Variable.LED0_STATE.ordinal(), genome.code[pc] == Interpreter.OP_LED0_ON);
+				break;
+
+			case Interpreter.OP_LED1_ON:
+			case Interpreter.OP_LED1_OFF:
+				Biolume.setActuator(current, previous, 0, genome.vars, Variable.LED1_H.ordinal(),
+						Variable.LED1_STATE.ordinal(), genome.code[pc] == Interpreter.OP_LED1_ON);
+				break;
+
+			case Interpreter.OP_SPEAKER_ON:
+			case Interpreter.OP_SPEAKER_OFF:
+				Biolume.setActuator(current, previous, 0, genome.vars, Variable.SPEAKER.ordinal(),
+						Variable.SPEAKER_STATE.ordinal(), genome.code[pc] == Interpreter.OP_SPEAKER_ON);
+				break;
+
+			case Interpreter.OP_LED0_TOGGLE:
+				Biolume.toggleActuator(current, previous, 0, Variable.LED0_H.ordinal(), Variable.LED0_STATE.ordinal());
+				break;
+
+			case Interpreter.OP_LED1_TOGGLE:
+				Biolume.toggleActuator(current, previous, 0, Variable.LED1_H.ordinal(), Variable.LED1_STATE.ordinal());
+				break;
+
+			// Nothing detected: the positive conditionals skip.
+			case Interpreter.OP_IF_MOTION:
+			case Interpreter.OP_IF_SOUND:
+			case Interpreter.OP_IF_TOUCH:
+			case Interpreter.OP_IF_CO2:
+				pc = (pc + 1) % size;
+				break;
+
+			case Interpreter.OP_LABEL:
+				label = pc;
+				break;
+
+			case Interpreter.OP_JUMP:
+				pc = label;
+				break;
+
+			// The rest of the trajectory depends on the Biolume's history.
+			case Interpreter.OP_BUFFER_GET_DATA:
+			case Interpreter.OP_IF_LO_ENERGY:
+			case Interpreter.OP_IF_HI_ENERGY:
+				return new DisplayCycle(displays, phase + 1, 0);
+
+			default:
+				break; // no effect on the display or the pc
+			}
+			pc = (pc + 1) % size;
+		}
+	}
+
+	/**
+	 * @param age:	The age of a Biolume carrying the genome (which never had
+	 * a sensor detection).
+	 * @return:	The phase of its display (-1 if unknown).
+	 */
+	int phase(int age) {
+		if (age < this.phases) return age;
+		if (this.period == 0) return -1;
+		int start = this.phases - this.period;
+		return start + (age - start) % this.period;
+	}
+
+	/**
+	 * This method calculates the fitness of one LED at every phase (see
+	 * PressureKernel.fitness()).
+	 * @param kernel:	The kernel to calculate the fitness with.
+	 * @param first:	The ordinal of the LED's hue variable (LED0_H or LED1_H).
+	 * @param target:	The HSB values of the target color.
+	 * @param fitness:	The array that receives the fitness of each phase.
+	 */
+	void fitness(PressureKernel kernel, int first, float[] target, float[] fitness) {
+		kernel.fitness(this.displays, first, target, this.phases, fitness);
+	}
+
+	/**
+	 * @param setting:	The number of a pressure setting (targets and amount
+	 * of pressures, numbered by the engine).
+	 * @return:	The energy rewarded at every phase under that setting (null
+	 * if it was not calculated, see newRewards()).
+	 */
+	double[] rewards(long setting) {
+		return (setting == this.rewards_setting) ? this.rewards : null;
+	}
+
+	/**
+	 * @param setting:	The number of a pressure setting.
+	 * @return:	The array to fill with the energy rewarded at every phase
+	 * under that setting.
+	 */
+	double[] newRewards(long setting) {
+		if (this.rewards == null) this.rewards = new double[this.phases];
+		this.rewards_setting = setting;
+		return this.rewards;
+	}
+
+	/**
+	 * @return:	The amount of known phases.
+	 */
+	public int phases() {
+		return this.phases;
+	}
+
+	/**
+	 * @return:	The length of the display cycle (0 if it is not known).
+	 */
+	public int period() {
+		return this.period;
+	}
+}
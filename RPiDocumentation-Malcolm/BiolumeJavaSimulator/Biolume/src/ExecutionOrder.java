@@ -0,0 +1,61 @@
+/**
+ * ExecutionOrder.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the order in which the Biolumes of a
+ * population execute during a step. Every Biolume is identified by its cell
+ * index (x * y_size + y) and must execute exactly once per step, in a
+ * random order.
+ * - The order is kept in a single permutation that is shuffled in place
+ * (Fisher-Yates) at every step, so no memory is allocated while stepping.
+ */
+
+public class ExecutionOrder {
+
+    /**************************************************************************
+     * Execution order parameters.
+     */
+
+	// Permutation of the cell indices.
+	private final int[] order;
+
+    /**************************************************************************
+     * Execution order methods.
+     */
+
+	/**
+	 * Execution order constructor.
+	 * @param size:	The amount of cells in the population.
+	 */
+	public ExecutionOrder(int size) {
+		this.order = new int[size];
+		for (int i = 0; i < size; i++)
+			this.order[i] = i;
+	}
+
+	/**
+	 * This method shuffles the permutation into a new, uniformly random order.
+	 * Since any permutation is a valid starting point for Fisher-Yates, the
+	 * previous order never needs to be reset.
+	 * @param rng:	The random number streams.
+	 * @param stream:	The stream to draw from.
+	 * @return:	The cell indices in the order in which they should execute. The
+	 * array is reused by the next call, so it must not be kept.
+	 */
+	public int[] shuffle(RandomStreams rng, int stream) {
+		for (int i = this.order.length - 1; i > 0; i--) {
+			int j = rng.nextInt(stream, i + 1);
+			int swap = this.order[i];
+			this.order[i] = this.order[j];
+			this.order[j] = swap;
+		}
+		return this.order;
+	}
+
+	/**
+	 * @return:	The amount of cells in the population.
+	 */
+	public int size() {
+		return this.order.length;
+	}
+}
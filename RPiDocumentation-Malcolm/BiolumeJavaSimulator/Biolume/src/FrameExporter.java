@@ -0,0 +1,410 @@
+/**
+ * FrameExporter.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the recording of a simulation as a
+ * sequence of images, e.g. for time-lapse videos. Every Nth step the engine
+ * hands the population to the exporter (see SimulationEngine.setExporter()),
+ * which copies what it shows and returns right away; a pool of background
+ * threads renders the copies off-screen and writes them as PNG files named
+ * after their step (frame_000000010.png, frame_000000020.png...) or as one
+ * raw RGB stream (3 bytes per pixel, frames back to back, e.g. for
+ * "ffmpeg -f rawvideo"). The step of each frame of the stream is written to
+ * a text index next to it (frames.rgb.steps: one step per line, in order).
+ * - Each Biolume is a square of scale x scale pixels: LED0 on the left half
+ * and LED1 on the right half, in their displayed colors (the whole square
+ * shows LED0 at scale 1). Reproducing Biolumes are black.
+ * - Frames are copied into a fixed set of buffers. When every buffer is in
+ * use (the encoders are behind), a blocking exporter makes the stepper wait
+ * for one, so every Nth step is recorded (for headless and batch runs). A
+ * non-blocking one never makes the stepper wait (for the Simulator): the
+ * step is dropped and counted instead, and leaves a gap in the steps of the
+ * file names or of the index.
+ * - PNG frames are encoded concurrently. Raw frames are rendered
+ * concurrently but written by a single thread, in order.
+ * - Usage: construct, pass to SimulationEngine.setExporter(), and close()
+ * once the run is over to wait for the frames still being written.
+ */
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.imageio.ImageIO;
+
+public class FrameExporter {
+
+    /**************************************************************************
+     * Frame exporter parameters.
+     */
+
+	// Output formats.
+	public static final int PNG = 0;
+	public static final int RGB = 1;
+
+	// Format, output (a directory for PNG, a file for RGB), steps between
+	// frames, pixels per Biolume, and whether the stepper waits for a buffer.
+	private final int format;
+	private final File path;
+	private final int every;
+	private final int scale;
+	private final boolean block;
+
+	// Dimensions of the population and of the images.
+	private final int x_size;
+	private final int y_size;
+	private final int width;
+	private final int height;
+
+	/**
+	 * A frame buffer: the copied population, and its rendered image.
+	 */
+	private final class Slot {
+
+		private final PopulationSnapshot.Frame frame;
+		private final BufferedImage image;
+		private final int[] pixels;
+		private final byte[] rgb;
+
+		Slot() {
+			this.frame = new PopulationSnapshot.Frame(x_size, y_size);
+			this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+			this.rgb = (format == RGB) ? new byte[3 * width * height] : null;
+		}
+	}
+
+	// Buffers free to take a frame.
+	private final BlockingQueue<Slot> free;
+
+	// Threads rendering (and, for PNG, writing) frames, and the thread
+	// writing the raw stream and its index in order (RGB only).
+	private final ExecutorService encoders;
+	private final ExecutorService writer;
+	private final OutputStream raw;
+	private final Writer index;
+
+	// Frames taken, frames written, and steps dropped.
+	private long taken = 0;
+	private final AtomicLong written = new AtomicLong();
+	private long dropped = 0;
+
+	// First failure of a background thread (rethrown by close()).
+	private final AtomicReference<IOException> failure = new AtomicReference<IOException>();
+
+    /**************************************************************************
+     * Frame exporter methods.
+     */
+
+	/**
+	 * Frame exporter constructor.
+	 * @param cfg:	The configuration of the simulation.
+	 * @param format:	PNG or RGB.
+	 * @param path:	The directory of the PNG files (created if missing), or
+	 * the file of the RGB stream.
+	 * @param every:	The amount of steps between frames.
+	 * @param scale:	The size of a Biolume, in pixels.
+	 * @param threads:	The amount of encoder threads.
+	 * @param buffers:	The amount of frames that can wait to be written.
+	 * @param block:	True to make the stepper wait for a free buffer, false
+	 * to drop the step instead.
+	 * @throws:	IOException if the output cannot be created.
+	 */
+	public FrameExporter(SimConfig cfg, int format, String path, int every, int scale, int threads, int buffers,
+			boolean block) throws IOException {
+
+		if (format != PNG && format != RGB) throw new IllegalArgumentException("Bad export format: " + format);
+		if (every < 1 || scale < 1 || threads < 1 || buffers < 1)
+			throw new IllegalArgumentException("Bad export parameters: every, scale, threads and buffers must be positive");
+		if ((long) cfg.x_size * cfg.y_size * scale * scale > Integer.MAX_VALUE / 3)
+			throw new IllegalArgumentException("Bad export parameters: frames would be too large");
+
+		this.format = format;
+		this.path = new File(path);
+		this.every = every;
+		this.scale = scale;
+		this.block = block;
+		this.x_size = cfg.x_size;
+		this.y_size = cfg.y_size;
+		this.width = cfg.x_size * scale;
+		this.height = cfg.y_size * scale;
+
+		if (format == PNG) {
+			if (!this.path.isDirectory() && !this.path.mkdirs())
+				throw new IOException("Cannot create directory " + this.path);
+			this.raw = null;
+			this.index = null;
+			this.writer = null;
+		}
+		else {
+			this.raw = new BufferedOutputStream(new FileOutputStream(this.path), 1 << 20);
+			this.index = new FileWriter(this.path.getPath() + ".steps");
+			this.writer = Executors.newSingleThreadExecutor(daemons("frame-writer"));
+		}
+		this.encoders = Executors.newFixedThreadPool(threads, daemons("frame-encoder"));
+
+		this.free = new ArrayBlockingQueue<Slot>(buffers);
+		for (int b = 0; b < buffers; b++) this.free.add(new Slot());
+	}
+
+	/**
+	 * This method creates an exporter from "export_*" settings:
+	 * export_format (PNG or RGB), export_path (frames, or frames.rgb),
+	 * export_every (1), export_scale (4), export_threads (half of the cores),
+	 * export_buffers (twice the threads, at least 4) and export_block (true
+	 * or false, see the constructor).
+	 * @param cfg:	The configuration of the simulation.
+	 * @param p:	The settings, without the "export_" prefix.
+	 * @param block:	The default of export_block.
+	 * @return:	The exporter, or null if there is no export_format.
+	 * @throws:	IOException if the output cannot be created.
+	 */
+	public static FrameExporter fromSettings(SimConfig cfg, Properties p, boolean block) throws IOException {
+		String format = p.getProperty("format");
+		if (format == null) return null;
+		for (String key : p.stringPropertyNames())
+			if (!Arrays.asList("format", "path", "every", "scale", "threads", "buffers", "block").contains(key))
+				throw new IllegalArgumentException("Unknown export key: export_" + key);
+
+		int f;
+		if (format.trim().equalsIgnoreCase("PNG")) f = PNG;
+		else if (format.trim().equalsIgnoreCase("RGB")) f = RGB;
+		else throw new IllegalArgumentException("Bad value for export_format: " + format);
+
+		String b = p.getProperty("block", Boolean.toString(block)).trim();
+		if (!b.equalsIgnoreCase("true") && !b.equalsIgnoreCase("false"))
+			throw new IllegalArgumentException("Bad value for export_block: " + b);
+
+		int threads = Integer.parseInt(p.getProperty("threads",
+				Integer.toString(Math.max(1, Runtime.getRuntime().availableProcessors() / 2))).trim());
+		return new FrameExporter(cfg, f,
+				p.getProperty("path", (f == PNG) ? "frames" : "frames.rgb").trim(),
+				Integer.parseInt(p.getProperty("every", "1").trim()),
+				Integer.parseInt(p.getProperty("scale", "4").trim()),
+				threads,
+				Integer.parseInt(p.getProperty("buffers", Integer.toString(Math.max(4, 2 * threads))).trim()),
+				Boolean.parseBoolean(b));
+	}
+
+	/**
+	 * This method is called by the engine at the end of every step. Every
+	 * Nth step, the population is copied and queued to be written. If every
+	 * buffer is in use, a blocking exporter waits for one; a non-blocking
+	 * one (or one interrupted while waiting) drops the step.
+	 * @param store:	The state of the population.
+	 * @param step:	The amount of steps executed by the population.
+	 */
+	void stepped(PopulationStore store, long step) {
+		if (step % this.every != 0) return;
+
+		Slot slot = this.free.poll();
+		if (slot == null && this.block) {
+			try {
+				slot = this.free.take();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		if (slot == null) {
+			this.dropped++;
+			return;
+		}
+		slot.frame.copy(store, step);
+		try {
+			this.submit(slot);
+			this.taken++;
+		}
+		catch (RejectedExecutionException e) {
+			// Closed: the run goes on unrecorded.
+			this.free.add(slot);
+			this.dropped++;
+		}
+	}
+
+	/**
+	 * This method queues a copied frame to be rendered and written.
+	 */
+	private void submit(final Slot slot) {
+		final long step = slot.frame.getStep();
+
+		if (this.format == PNG) {
+			this.encoders.execute(new Runnable() {
+				public void run() {
+					try {
+						render(slot);
+						ImageIO.write(slot.image, "png", new File(path, String.format("frame_%09d.png", step)));
+						written.incrementAndGet();
+					}
+					catch (IOException e) {
+						failure.compareAndSet(null, e);
+					}
+					finally {
+						free.add(slot);
+					}
+				}
+			});
+		}
+		else {
+			final Future<?> rendered = this.encoders.submit(new Runnable() {
+				public void run() {
+					render(slot);
+					toRGB(slot);
+				}
+			});
+			// Submitted in order to a single thread, so written in order.
+			this.writer.execute(new Runnable() {
+				public void run() {
+					try {
+						rendered.get();
+						raw.write(slot.rgb);
+						index.write(step + "\n");
+						written.incrementAndGet();
+					}
+					catch (IOException e) {
+						failure.compareAndSet(null, e);
+					}
+					catch (Exception e) {
+						failure.compareAndSet(null, new IOException("Frame of step " + step + " failed", e));
+					}
+					finally {
+						free.add(slot);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * This method renders the population of a buffer into its image.
+	 */
+	private void render(Slot slot) {
+
+		PopulationSnapshot.Frame frame = slot.frame;
+		int half = (this.scale == 1) ? 1 : this.scale / 2;
+		for (int i = 0; i < this.x_size; i++)
+			for (int j = 0; j < this.y_size; j++) {
+				int led0 = 0, led1 = 0;
+				if (!frame.isReproducing(i, j)) {
+					led0 = hsbToRGB(frame.getDisplay(i, j, Variable.LED0_H), frame.getDisplay(i, j, Variable.LED0_S),
+							frame.getDisplay(i, j, Variable.LED0_B));
+					led1 = hsbToRGB(frame.getDisplay(i, j, Variable.LED1_H), frame.getDisplay(i, j, Variable.LED1_S),
+							frame.getDisplay(i, j, Variable.LED1_B));
+				}
+				int p = j * this.scale * this.width + i * this.scale;
+				for (int r = 0; r < this.scale; r++, p += this.width) {
+					Arrays.fill(slot.pixels, p, p + half, led0);
+					Arrays.fill(slot.pixels, p + half, p + this.scale, led1);
+				}
+			}
+	}
+
+	/**
+	 * This method packs the image of a buffer into its raw RGB bytes.
+	 */
+	private static void toRGB(Slot slot) {
+		int[] pixels = slot.pixels;
+		byte[] rgb = slot.rgb;
+		for (int p = 0, b = 0; p < pixels.length; p++, b += 3) {
+			rgb[b] = (byte) (pixels[p] >> 16);
+			rgb[b + 1] = (byte) (pixels[p] >> 8);
+			rgb[b + 2] = (byte) pixels[p];
+		}
+	}
+
+	/**
+	 * @return:	The RGB value of a displayed HSB color (values 0 to
+	 * CC.MAX_VAR, as drawn by the Simulator).
+	 */
+	static int hsbToRGB(int h, int s, int b) {
+		return Color.HSBtoRGB(h / (float) CC.MAX_VAR, s / (float) CC.MAX_VAR, b / (float) CC.MAX_VAR) & 0xFFFFFF;
+	}
+
+	/**
+	 * This method waits for every queued frame to be written, then releases
+	 * the threads and closes the output (and the index).
+	 * @throws:	IOException if a frame could not be written.
+	 * @throws:	InterruptedException if interrupted while waiting.
+	 */
+	public void close() throws IOException, InterruptedException {
+		this.encoders.shutdown();
+		this.encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		if (this.writer != null) {
+			this.writer.shutdown();
+			this.writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			this.raw.close();
+			this.index.close();
+		}
+		if (this.failure.get() != null) throw this.failure.get();
+	}
+
+	/**
+	 * @return:	The amount of frames taken so far.
+	 */
+	public long getTaken() {
+		return this.taken;
+	}
+
+	/**
+	 * @return:	The amount of frames written so far.
+	 */
+	public long getWritten() {
+		return this.written.get();
+	}
+
+	/**
+	 * @return:	The amount of steps dropped because the encoders were behind
+	 * (always 0 for a blocking exporter, unless interrupted or closed).
+	 */
+	public long getDropped() {
+		return this.dropped;
+	}
+
+	/**
+	 * @return:	The width of the frames, in pixels.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * @return:	The height of the frames, in pixels.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * @return:	A factory of daemon threads (the exporter never keeps the JVM
+	 * alive on its own).
+	 */
+	private static ThreadFactory daemons(final String name) {
+		return new ThreadFactory() {
+			private int count = 0;
+			public synchronized Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "-" + (this.count++));
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+}
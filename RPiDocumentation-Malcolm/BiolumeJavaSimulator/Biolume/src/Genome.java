@@ -0,0 +1,238 @@
+/**
+ * Genome.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes an immutable Biolume genome: the
+ * executable instructions (opcodes) and the variables (see Variable.java).
+ * A genome never changes once built, so an offspring simply shares its
+ * parent's genome, and clonal lineages share a single copy.
+ * - Changes go through an Editor, which starts from an existing genome and
+ * only copies it the first time a change really alters it (copy on write).
+ * An editor that changed nothing hands back the genome it started from.
+ * - Genomes are equal when their instructions and variables are, and hash
+ * by their content (a polynomial rolling hash, computed once), so they can
+ * be interned (see GenotypeRegistry.java).
+ * - The display trajectory of a genome (see DisplayCycle.java) is derived
+ * from it on first use and kept with it, like the hash.
+ */
+public final class Genome {
+
+    /**************************************************************************
+     * Genome parameters.
+     */
+
+	// Executable instructions (opcodes), exactly as many as the genome size.
+	// Must not be modified (package-private only so stepping avoids a call).
+	final int[] code;
+
+	// Variables, in Variable order (Variable.NUM_VARS of them).
+	final int[] vars;
+
+	// Content hash.
+	private final int hash;
+
+	// Display trajectory (null until first used).
+	private DisplayCycle display_cycle;
+
+    /**************************************************************************
+     * Genome methods.
+     */
+
+	/**
+	 * Genome constructor. The arrays are owned by the genome from now on.
+	 * @param code:	The executable instructions.
+	 * @param vars:	The variables.
+	 */
+	Genome(int[] code, int[] vars) {
+		this.code = code;
+		this.vars = vars;
+
+		int h = code.length;
+		for (int i = 0; i < code.length; i++) h = 31 * h + code[i];
+		for (int i = 0; i < vars.length; i++) h = 31 * h + vars[i];
+		this.hash = h;
+	}
+
+	@Override
+	public int hashCode() {
+		return this.hash;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) return true;
+		if (!(o instanceof Genome)) return false;
+		Genome other = (Genome) o;
+		return this.hash == other.hash && java.util.Arrays.equals(this.code, other.code)
+				&& java.util.Arrays.equals(this.vars, other.vars);
+	}
+
+	/**
+	 * @return:	The executable genome size.
+	 */
+	public int size() {
+		return this.code.length;
+	}
+
+	/**
+	 * @param i:	The position of an instruction.
+	 * @return:	The opcode at the given position.
+	 */
+	public int opcode(int i) {
+		return this.code[i];
+	}
+
+	/**
+	 * @param v:	The ordinal of a Variable.
+	 * @return:	The value of the variable.
+	 */
+	public int variable(int v) {
+		return this.vars[v];
+	}
+
+	/**
+	 * @return:	The display trajectory of a Biolume carrying this genome.
+	 */
+	DisplayCycle displayCycle() {
+		if (this.display_cycle == null) this.display_cycle = DisplayCycle.of(this);
+		return this.display_cycle;
+	}
+
+	/**
+	 * A copy-on-write draft of a genome. The instructions and the variables
+	 * are each copied on their first real change.
+	 */
+	static final class Editor {
+
+		// The genome this draft started from.
+		private final Genome base;
+
+		// Private copies (null while still shared with base).
+		private int[] code;
+		private int[] vars;
+
+		// Current executable genome size.
+		private int size;
+
+		// Changes made: instructions replaced, inserted and deleted, and
+		// variables changed (turning the actuators off is not counted).
+		private int copies;
+		private int insertions;
+		private int deletions;
+		private int variable_changes;
+
+		Editor(Genome base) {
+			this.base = base;
+			this.size = base.code.length;
+		}
+
+		int size() {
+			return this.size;
+		}
+
+		int opcode(int i) {
+			return (this.code == null) ? this.base.code[i] : this.code[i];
+		}
+
+		int variable(int v) {
+			return (this.vars == null) ? this.base.vars[v] : this.vars[v];
+		}
+
+		// Copy the instructions, with room for CC.EXE_SIZE_MAX of them.
+		private void ownCode() {
+			if (this.code != null) return;
+			this.code = new int[Math.max(CC.EXE_SIZE_MAX, this.size)];
+			System.arraycopy(this.base.code, 0, this.code, 0, this.size);
+		}
+
+		/**
+		 * This method replaces the instruction at a position.
+		 * @param i:	The position.
+		 * @param opcode:	The new instruction.
+		 */
+		void setOpcode(int i, int opcode) {
+			if (this.opcode(i) == opcode) return;
+			this.ownCode();
+			this.code[i] = opcode;
+			this.copies++;
+		}
+
+		/**
+		 * This method removes the instruction at a position, shifting the
+		 * following ones up.
+		 * @param i:	The position.
+		 */
+		void delete(int i) {
+			this.ownCode();
+			this.size--;
+			System.arraycopy(this.code, i + 1, this.code, i, this.size - i);
+			this.deletions++;
+		}
+
+		/**
+		 * This method inserts an instruction at a position, shifting the
+		 * following ones down, as long as the genome is below CC.EXE_SIZE_MAX.
+		 * @param i:	The position.
+		 * @param opcode:	The new instruction.
+		 * @return:	True if the insertion was made, false if the genome is full.
+		 */
+		boolean insert(int i, int opcode) {
+			if (this.size >= CC.EXE_SIZE_MAX) return false;
+			this.ownCode();
+			System.arraycopy(this.code, i, this.code, i + 1, this.size - i);
+			this.code[i] = opcode;
+			this.size++;
+			this.insertions++;
+			return true;
+		}
+
+		/**
+		 * This method replaces the value of a variable.
+		 * @param v:	The ordinal of the Variable.
+		 * @param value:	The new value.
+		 */
+		void setVariable(int v, int value) {
+			if (this.variable(v) == value) return;
+			if (this.vars == null) this.vars = this.base.vars.clone();
+			this.vars[v] = value;
+			this.variable_changes++;
+		}
+
+		/**
+		 * This method sets the state variables of every actuator to CC.OFF.
+		 */
+		void actuatorsOff() {
+			int changes = this.variable_changes;
+			this.setVariable(Variable.LED0_STATE.ordinal(), CC.OFF);
+			this.setVariable(Variable.LED1_STATE.ordinal(), CC.OFF);
+			this.setVariable(Variable.SPEAKER_STATE.ordinal(), CC.OFF);
+			this.variable_changes = changes;
+		}
+
+		int copies() {
+			return this.copies;
+		}
+
+		int insertions() {
+			return this.insertions;
+		}
+
+		int deletions() {
+			return this.deletions;
+		}
+
+		int variableChanges() {
+			return this.variable_changes;
+		}
+
+		/**
+		 * @return:	The edited genome (the original one if nothing changed).
+		 */
+		Genome toGenome() {
+			if (this.code == null && this.vars == null) return this.base;
+			return new Genome(
+					(this.code == null) ? this.base.code : java.util.Arrays.copyOf(this.code, this.size),
+					(this.vars == null) ? this.base.vars : this.vars);
+		}
+	}
+}
@@ -0,0 +1,307 @@
+/**
+ * GenotypeRegistry.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the registry of the genotypes alive in
+ * a population, after Avida's genotype manager. A genotype is a distinct
+ * genome (instructions and variables). Genomes are interned by their content
+ * hash, so every Biolume with the same genome references one canonical
+ * Genome, and each genotype keeps a live count of the Biolumes carrying it.
+ * A genotype is dropped as soon as its count reaches zero.
+ * - Genotypes are also linked into one list per abundance (like an LFU
+ * cache), so the amount of genotypes and the dominant one are known in O(1)
+ * at any step: a birth or death only moves a genotype to the neighboring
+ * list.
+ * - Every new genotype is recorded in the population's phylogeny (see
+ * PhylogenyTracker.java), which is told when the genotype goes extinct.
+ * - In the parallel step mode, births are deferred while a colour class is
+ * stepped and registered once it is over, in cell id order (see defer() and
+ * flush()). Genotype numbers, the phylogeny and the tie-breaks of dominant()
+ * therefore only depend on the seed, not on the order threads finish in,
+ * and stepping takes no lock. The other methods are synchronized, for
+ * readers on other threads.
+ */
+
+import java.io.PrintStream;
+import java.util.HashMap;
+
+public class GenotypeRegistry {
+
+    /**************************************************************************
+     * Genotype registry parameters.
+     */
+
+	/**
+	 * A live genotype: its canonical genome and abundance.
+	 */
+	public static final class Genotype {
+
+		// Canonical genome of this genotype.
+		private final Genome genome;
+
+		// Registration number (genotypes are numbered from 0 as they appear).
+		private final long id;
+
+		// Amount of Biolumes carrying this genotype.
+		private int abundance;
+
+		// Phylogeny record of this genotype.
+		private PhylogenyTracker.Taxon taxon;
+
+		// Neighbors in the list of genotypes of the same abundance.
+		private Genotype prev;
+		private Genotype next;
+
+		private Genotype(Genome genome, long id) {
+			this.genome = genome;
+			this.id = id;
+		}
+
+		public Genome getGenome() {
+			return this.genome;
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		public int getAbundance() {
+			return this.abundance;
+		}
+
+		public PhylogenyTracker.Taxon getTaxon() {
+			return this.taxon;
+		}
+	}
+
+	// Live genotypes by genome.
+	private final HashMap<Genome, Genotype> genotypes = new HashMap<Genome, Genotype>();
+
+	// First genotype of each abundance (index 0 is unused).
+	private Genotype[] by_abundance = new Genotype[16];
+
+	// Highest abundance of a live genotype (0 if there are none).
+	private int max_abundance = 0;
+
+	// Amount of Biolumes registered, and of genotypes ever registered.
+	private int total = 0;
+	private long registered = 0;
+
+	// Ancestry of the genotypes.
+	private final PhylogenyTracker phylogeny = new PhylogenyTracker();
+
+	/**
+	 * A birth waiting to be registered (see defer()).
+	 */
+	private static final class Birth {
+
+		private final int cell;
+		private final Genome old_genome;
+		private final Genome genome;
+		private final Genome parent;
+		private final Genome.Editor mutations;
+		private final long step;
+
+		private Birth(int cell, Genome old_genome, Genome genome, Genome parent, Genome.Editor mutations, long step) {
+			this.cell = cell;
+			this.old_genome = old_genome;
+			this.genome = genome;
+			this.parent = parent;
+			this.mutations = mutations;
+			this.step = step;
+		}
+	}
+
+	// Births waiting to be registered, by cell id of the parent.
+	private final Birth[] deferred;
+
+    /**************************************************************************
+     * Genotype registry methods.
+     */
+
+	/**
+	 * Genotype registry constructor.
+	 * @param cells:	The amount of cells in the population.
+	 */
+	public GenotypeRegistry(int cells) {
+		this.deferred = new Birth[cells];
+	}
+
+	/**
+	 * This method registers a Biolume carrying a genome, creating its
+	 * genotype if it is new.
+	 * @param genome:	The genome.
+	 * @param parent:	The genome of the Biolume's parent (null for a
+	 * founder, or if the genome did not come from a birth).
+	 * @param mutations:	The editor that produced the genome from the
+	 * parent's (null if parent is null).
+	 * @param step:	The current step.
+	 * @return:	The canonical genome equal to the given one (to be stored
+	 * instead of it).
+	 */
+	public synchronized Genome add(Genome genome, Genome parent, Genome.Editor mutations, long step) {
+		Genotype g = this.genotypes.get(genome);
+		if (g == null) {
+			g = new Genotype(genome, this.registered++);
+			Genotype p = (parent == null) ? null : this.genotypes.get(parent);
+			g.taxon = this.phylogeny.originate(g.id, genome, (p == null) ? null : p.taxon, step,
+					(p == null) ? null : mutations);
+			this.genotypes.put(genome, g);
+		}
+		else this.unlink(g);
+
+		g.abundance++;
+		this.link(g);
+		this.total++;
+		return g.genome;
+	}
+
+	/**
+	 * This method unregisters a Biolume carrying a genome (e.g. because it
+	 * was replaced), dropping the genotype if it was the last one.
+	 * @param genome:	The genome (canonical or not).
+	 */
+	public synchronized void remove(Genome genome) {
+		Genotype g = this.genotypes.get(genome);
+		if (g == null) throw new IllegalStateException("Genome is not registered.");
+
+		this.unlink(g);
+		g.abundance--;
+		if (g.abundance > 0) this.link(g);
+		else {
+			this.genotypes.remove(genome);
+			this.phylogeny.extinct(g.taxon);
+		}
+		this.total--;
+	}
+
+	/**
+	 * This method replaces the genome carried by a Biolume.
+	 * @param old_genome:	The genome it carried (null if none).
+	 * @param new_genome:	The genome it carries now.
+	 * @param parent:	The genome of the Biolume's parent (null if none).
+	 * @param mutations:	The editor that produced new_genome from parent
+	 * (null if parent is null).
+	 * @param step:	The current step.
+	 * @return:	The canonical genome equal to new_genome.
+	 */
+	public synchronized Genome replace(Genome old_genome, Genome new_genome, Genome parent,
+			Genome.Editor mutations, long step) {
+		if (old_genome != null && old_genome == new_genome) return old_genome;
+		Genome canonical = this.add(new_genome, parent, mutations, step);
+		if (old_genome != null) this.remove(old_genome);
+		return canonical;
+	}
+
+	/**
+	 * This method records a birth to be registered by flush() (see
+	 * replace()). The cell keeps the given genome until then. Parents of one
+	 * colour class may call it concurrently: each writes its own entry.
+	 * @param parent_cell:	The cell id of the parent.
+	 * @param cell:	The cell id of the offspring.
+	 */
+	void defer(int parent_cell, int cell, Genome old_genome, Genome new_genome, Genome parent,
+			Genome.Editor mutations, long step) {
+		this.deferred[parent_cell] = new Birth(cell, old_genome, new_genome, parent, mutations, step);
+	}
+
+	/**
+	 * This method registers the births deferred by a colour class, in the
+	 * order of its cells, and stores the canonical genomes of the offspring.
+	 * @param parents:	The cell ids of the class.
+	 * @param genome:	The genomes of the population, by cell id.
+	 */
+	synchronized void flush(int[] parents, Genome[] genome) {
+		for (int i = 0; i < parents.length; i++) {
+			Birth b = this.deferred[parents[i]];
+			if (b == null) continue;
+			this.deferred[parents[i]] = null;
+			genome[b.cell] = this.replace(b.old_genome, b.genome, b.parent, b.mutations, b.step);
+		}
+	}
+
+	/**
+	 * @return:	The amount of distinct genotypes alive.
+	 */
+	public synchronized int distinct() {
+		return this.genotypes.size();
+	}
+
+	/**
+	 * @return:	The amount of Biolumes registered.
+	 */
+	public synchronized int total() {
+		return this.total;
+	}
+
+	/**
+	 * @return:	The amount of genotypes registered since the registry was
+	 * created (alive or not).
+	 */
+	public synchronized long registered() {
+		return this.registered;
+	}
+
+	/**
+	 * @return:	The most abundant genotype (null if there are none). Ties are
+	 * broken by which one reached that abundance last.
+	 */
+	public synchronized Genotype dominant() {
+		return this.by_abundance[this.max_abundance];
+	}
+
+	/**
+	 * @return:	The amount of taxa kept by the phylogeny (the living
+	 * genotypes and their ancestors).
+	 */
+	public synchronized int phylogenySize() {
+		return this.phylogeny.retained();
+	}
+
+	/**
+	 * This method writes the phylogeny (see PhylogenyTracker.write()).
+	 * @param out:	The stream to write to.
+	 */
+	public synchronized void writePhylogeny(PrintStream out) {
+		this.phylogeny.write(out);
+	}
+
+	/**
+	 * @param genome:	A genome.
+	 * @return:	The genotype of the genome (null if it is not alive).
+	 */
+	public synchronized Genotype get(Genome genome) {
+		return this.genotypes.get(genome);
+	}
+
+	/**
+	 * This method puts a genotype at the front of the list of its abundance.
+	 * @param g:	The genotype.
+	 */
+	private void link(Genotype g) {
+		if (g.abundance >= this.by_abundance.length)
+			this.by_abundance = java.util.Arrays.copyOf(this.by_abundance, 2 * g.abundance);
+
+		g.prev = null;
+		g.next = this.by_abundance[g.abundance];
+		if (g.next != null) g.next.prev = g;
+		this.by_abundance[g.abundance] = g;
+
+		if (g.abundance > this.max_abundance) this.max_abundance = g.abundance;
+	}
+
+	/**
+	 * This method takes a genotype out of the list of its abundance.
+	 * @param g:	The genotype.
+	 */
+	private void unlink(Genotype g) {
+		if (g.prev != null) g.prev.next = g.next;
+		else this.by_abundance[g.abundance] = g.next;
+		if (g.next != null) g.next.prev = g.prev;
+		g.prev = g.next = null;
+
+		// Abundances only change by one, so the maximum drops at most by one.
+		if (g.abundance == this.max_abundance && this.by_abundance[g.abundance] == null)
+			this.max_abundance--;
+	}
+}
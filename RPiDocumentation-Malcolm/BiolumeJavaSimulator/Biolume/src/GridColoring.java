@@ -0,0 +1,96 @@
+/**
+ * GridColoring.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes a partition of the toroidal population
+ * grid into colour classes. A Biolume step touches its own cell and its 1-hop
+ * neighbors (MESSAGE_SEND and MESSAGE_RETRIEVE read their outboxes,
+ * REPRODUCE inspects and replaces one of them), so two cells can safely step
+ * at the same time only if their 1-hop neighborhoods do not overlap, that is,
+ * if they are at least 3 hops apart (Chebyshev distance, with wraparound).
+ * - Each axis is coloured independently: coordinates are coloured modulo 3,
+ * and the columns (rows) left over when the axis is not a multiple of 3 get a
+ * colour of their own so the wraparound never puts a colour next to itself.
+ * A class is a pair of axis colours, so a 15x10 grid has 3 x 4 = 12 classes.
+ */
+public class GridColoring {
+
+    /**************************************************************************
+     * Grid colouring parameters.
+     */
+
+	// Cell ids (x * y_size + y) of every colour class.
+	private final int[][] classes;
+
+    /**************************************************************************
+     * Grid colouring methods.
+     */
+
+	/**
+	 * Grid colouring constructor.
+	 * @param x_size:	The width of the toroidal grid.
+	 * @param y_size:	The height of the toroidal grid.
+	 */
+	public GridColoring(int x_size, int y_size) {
+
+		int y_colors = colors(y_size);
+		int num_classes = colors(x_size) * y_colors;
+
+		// Count the cells of each class.
+		int[] counts = new int[num_classes];
+		for (int x = 0; x < x_size; x++)
+			for (int y = 0; y < y_size; y++)
+				counts[color(x, x_size) * y_colors + color(y, y_size)]++;
+
+		// Fill the classes in cell id order.
+		this.classes = new int[num_classes][];
+		for (int c = 0; c < num_classes; c++)
+			this.classes[c] = new int[counts[c]];
+		int[] filled = new int[num_classes];
+		for (int x = 0; x < x_size; x++)
+			for (int y = 0; y < y_size; y++) {
+				int c = color(x, x_size) * y_colors + color(y, y_size);
+				this.classes[c][filled[c]++] = x * y_size + y;
+			}
+	}
+
+	/**
+	 * This method returns the amount of colours used for one axis.
+	 * @param n:	The length of the axis.
+	 * @return:	The amount of colours for the axis.
+	 */
+	private static int colors(int n) {
+		if (n < 3) return n;
+		return 3 + n % 3;
+	}
+
+	/**
+	 * This method returns the colour of a coordinate along one axis.
+	 * @param i:	The coordinate.
+	 * @param n:	The length of the axis.
+	 * @return:	The colour of the coordinate.
+	 */
+	private static int color(int i, int n) {
+		if (n < 3) return i;
+		int whole = n - n % 3; // Coordinates that repeat the 3 base colours.
+		if (i < whole) return i % 3;
+		return 3 + (i - whole);
+	}
+
+	/**
+	 * @return:	The amount of colour classes.
+	 */
+	public int numClasses() {
+		return this.classes.length;
+	}
+
+	/**
+	 * This method returns the cells of a colour class. No two of them share a
+	 * 1-hop neighbor. The array is shared and must not be modified.
+	 * @param c:	The colour class.
+	 * @return:	The cell ids of the class.
+	 */
+	public int[] cells(int c) {
+		return this.classes[c];
+	}
+}
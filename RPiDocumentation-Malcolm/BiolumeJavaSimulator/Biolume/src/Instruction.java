@@ -3,6 +3,9 @@
  * @authors: Tony J. Clark, Daniel J. Couvertier
  * @date: July 28, 2011
  * @description: This file contains all possible Biolume instructions. 
+ * - The ordinal of each instruction is its opcode in the Biolume genome. The
+ * behavior of each instruction is implemented in Interpreter.java, which
+ * must be kept in sync with the order of this enumeration.
  */
 public enum Instruction {
 	
@@ -10,29 +13,14 @@ public enum Instruction {
 	 * @Instruction: No-Operation (NOP).
 	 * @Description: This instruction does nothing.
 	 */
-	NOP {
-		public void execute(Biolume b) {
-			return;
-		}
-	},
+	NOP,
 	
 	/**
 	 * @Instruction: Turn LED0 On (LED0_ON).
 	 * @Description: This instruction sets the display values for LED0 to the
 	 * encoded HSB values for LED0. It also sets the state of LED0 to ON. 
 	 */
-	LED0_ON {
-		public void execute(Biolume b) {
-			int[] vars = b.getVariables();
-			int[] on_vals = b.getDisplay();
-			on_vals[Variable.LED0_H.ordinal()] = vars[Variable.LED0_H.ordinal()];
-			on_vals[Variable.LED0_S.ordinal()] = vars[Variable.LED0_S.ordinal()];
-			on_vals[Variable.LED0_B.ordinal()] = vars[Variable.LED0_B.ordinal()];
-			on_vals[Variable.LED0_STATE.ordinal()] = CC.ON;
-			b.setDisplay(on_vals);
-			return;
-		}
-	},
+	LED0_ON,
 	
 	/**
 	 * @Instruction: Turn LED0 Off (LED0_OFF).
@@ -40,53 +28,21 @@ public enum Instruction {
 	 * (technically, and only within the Simulator, it sets them to black). It
 	 * also sets the state of LED0 to OFF. 
 	 */
-	LED0_OFF {
-		public void execute(Biolume b) {
-			int[] off_vals = b.getDisplay();
-			off_vals[Variable.LED0_H.ordinal()] = CC.OFF;
-			off_vals[Variable.LED0_S.ordinal()] = CC.OFF;
-			off_vals[Variable.LED0_B.ordinal()] = CC.OFF;
-			off_vals[Variable.LED0_STATE.ordinal()] = CC.OFF;
-			b.setDisplay(off_vals);
-			return;
-		}
-	},
+	LED0_OFF,
 	
 	/**
 	 * @Instruction: Toggle LED0 (LED0_TOGGLE).
 	 * @Description: This instruction sets the display values for LED0 to their
 	 * previous state, whatever that may have been.
 	 */
-	LED0_TOGGLE {
-		public void execute(Biolume b) {
-			int[] tog_vals = b.getDisplay();
-			int[] pre_vals = b.getPreviousDisplay();
-			tog_vals[Variable.LED0_H.ordinal()] = pre_vals[Variable.LED0_H.ordinal()];
-			tog_vals[Variable.LED0_S.ordinal()] = pre_vals[Variable.LED0_S.ordinal()];
-			tog_vals[Variable.LED0_B.ordinal()] = pre_vals[Variable.LED0_B.ordinal()];
-			tog_vals[Variable.LED0_STATE.ordinal()] = pre_vals[Variable.LED0_STATE.ordinal()];
-			b.setDisplay(tog_vals);
-			return;
-		}
-	},
+	LED0_TOGGLE,
 	
 	/**
 	 * @Instruction: Turn LED1 On (LED1_ON).
 	 * @Description: This instruction sets the display values for LED1 to the
 	 * encoded HSB values for LED1. It also sets the state of LED1 to ON.  
 	 */
-	LED1_ON {
-		public void execute(Biolume b) {
-			int[] vars = b.getVariables();
-			int[] on_vals = b.getDisplay();
-			on_vals[Variable.LED1_H.ordinal()] = vars[Variable.LED1_H.ordinal()];
-			on_vals[Variable.LED1_S.ordinal()] = vars[Variable.LED1_S.ordinal()];
-			on_vals[Variable.LED1_B.ordinal()] = vars[Variable.LED1_B.ordinal()];
-			on_vals[Variable.LED1_STATE.ordinal()] = CC.ON;
-			b.setDisplay(on_vals);
-			return;
-		}
-	},
+	LED1_ON,
 	
 	/**
 	 * @Instruction: Turn LED1 Off (LED1_OFF).
@@ -94,35 +50,14 @@ public enum Instruction {
 	 * (technically, and only within the Simulator, it sets them to black). It
 	 * also sets the state of LED1 to OFF. 
 	 */
-	LED1_OFF {
-		public void execute(Biolume b) {
-			int[] off_vals = b.getDisplay();
-			off_vals[Variable.LED1_H.ordinal()] = CC.OFF;
-			off_vals[Variable.LED1_S.ordinal()] = CC.OFF;
-			off_vals[Variable.LED1_B.ordinal()] = CC.OFF;
-			off_vals[Variable.LED1_STATE.ordinal()] = CC.OFF;
-			b.setDisplay(off_vals);
-			return;
-		}
-	},
+	LED1_OFF,
 	
 	/**
 	 * @Instruction: Toggle LED1 (LED1_TOGGLE).
 	 * @Description: This instruction sets the display values for LED1 to their
 	 * previous state, whatever that may have been.
 	 */
-	LED1_TOGGLE {
-		public void execute(Biolume b) {
-			int[] tog_vals = b.getDisplay();
-			int[] pre_vals = b.getPreviousDisplay();
-			tog_vals[Variable.LED1_H.ordinal()] = pre_vals[Variable.LED1_H.ordinal()];
-			tog_vals[Variable.LED1_S.ordinal()] = pre_vals[Variable.LED1_S.ordinal()];
-			tog_vals[Variable.LED1_B.ordinal()] = pre_vals[Variable.LED1_B.ordinal()];
-			tog_vals[Variable.LED1_STATE.ordinal()] = pre_vals[Variable.LED1_STATE.ordinal()];
-			b.setDisplay(tog_vals);
-			return;
-		}
-	},
+	LED1_TOGGLE,
 	
 	/**
 	 * @Instruction: Turn Speaker On (SPEAKER_ON).
@@ -131,16 +66,7 @@ public enum Instruction {
 	 * It also sets the state of the Speaker to ON. Within the Simulator, no
 	 * translation is actually made since there are no MIDI files available. 
 	 */
-	SPEAKER_ON {
-		public void execute(Biolume b) {
-			int[] vars = b.getVariables();
-			int[] on_vals = b.getDisplay();
-			on_vals[Variable.SPEAKER.ordinal()] = vars[8];
-			on_vals[Variable.SPEAKER_STATE.ordinal()] = CC.ON;
-			b.setDisplay(on_vals);
-			return;
-		}
-	},
+	SPEAKER_ON,
 	
 	/**
 	 * @Instruction: Turn Speaker Off (SPEAKER_OFF).
@@ -149,14 +75,7 @@ public enum Instruction {
 	 * value is being set to index 0). It also sets the state of the Speaker to
 	 * OFF.
 	 */
-	SPEAKER_OFF {
-		public void execute(Biolume b) {
-			int[] off_vals = b.getDisplay();
-			off_vals[Variable.SPEAKER.ordinal()] = CC.OFF;
-			off_vals[Variable.SPEAKER_STATE.ordinal()] = CC.OFF;
-			b.setDisplay(off_vals);
-		}
-	},
+	SPEAKER_OFF,
 	
 	/**
 	 * @Instruction: Copy current display to display buffer (BUFFER_SET_DATA).
@@ -164,11 +83,7 @@ public enum Instruction {
 	 * display buffer, including: LED HSB values, LED states, speaker index,
 	 * and speaker state.
 	 */
-	BUFFER_SET_DATA {
-		public void execute(Biolume b) {
-			b.displayToBuffer();
-		}
-	},
+	BUFFER_SET_DATA,
 	
 	/**
 	 * @Instruction: Copy display buffer to current display (BUFFER_GET_DATA).
@@ -176,11 +91,7 @@ public enum Instruction {
 	 * into the current display, including: LED HSB values, LED states, speaker
 	 * index, and speaker state.
 	 */
-	BUFFER_GET_DATA {
-		public void execute(Biolume b) {
-			b.bufferToDisplay();
-		}
-	},
+	BUFFER_GET_DATA,
 	
 	/**
 	 * @Instruction: Broadcast display buffer (MESSAGE_SEND).
@@ -189,11 +100,7 @@ public enum Instruction {
 	 * and speaker state. A neighbor must execute a MESSAGE_RETRIEVE to place
 	 * this data in its own display buffer. 
 	 */
-	MESSAGE_SEND {
-		public void execute(Biolume b) {
-			b.broadcastNeighborhood();
-		}
-	},
+	MESSAGE_SEND,
 	
 	/**
 	 * @Instruction: Save broadcast into display buffer (MESSAGE_RECEIVE).
@@ -202,11 +109,7 @@ public enum Instruction {
 	 * includes: LED HSB values, LED states, speaker index, and speaker state.
 	 * A neighbor must execute a MESSAGE_SEND to make its data available. 
 	 */
-	MESSAGE_RETRIEVE {
-		public void execute(Biolume b) {
-			b.messageToBuffer();
-		}
-	},
+	MESSAGE_RETRIEVE,
 	
 	/**
 	 * @Instruction: Execute next instruction if motion WAS sensed (IF_MOTION).
@@ -215,12 +118,7 @@ public enum Instruction {
 	 * Biolume's genome will be executed in the next step. Otherwise, the next
 	 * instruction will be skipped.   
 	 */
-	IF_MOTION {
-		public void execute(Biolume b) {
-			if (!b.getDetection(CC.MOTION, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_MOTION,
 	
 	/**
 	 * @Instruction: Execute next instruction if motion NOT sensed (IF_N_MOTION).
@@ -229,12 +127,7 @@ public enum Instruction {
 	 * Biolume's genome will be skipped. Otherwise, the next instruction will
 	 * be executed in the next step.  
 	 */
-	IF_N_MOTION {
-		public void execute(Biolume b) {
-			if (b.getDetection(CC.MOTION, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_N_MOTION,
 	
 	/**
 	 * @Instruction: Execute next instruction if sound WAS sensed (IF_SOUND).
@@ -245,12 +138,7 @@ public enum Instruction {
 	 * Note that this instruction operates on long term sound only, and does
 	 * not discriminate them from new sounds.
 	 */
-	IF_SOUND {
-		public void execute(Biolume b) {
-			if (!b.getDetection(CC.SOUND, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_SOUND,
 	
 	/**
 	 * @Instruction: Execute next instruction if sound NOT sensed (IF_N_SOUND).
@@ -261,12 +149,7 @@ public enum Instruction {
 	 * Note that this instruction operates on long term sound only, and does
 	 * not discriminate them from new sounds.
 	 */
-	IF_N_SOUND {
-		public void execute(Biolume b) {
-			if (b.getDetection(CC.SOUND, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_N_SOUND,
 	
 	/**
 	 * @Instruction: Execute next instruction if touch WAS sensed (IF_TOUCH).
@@ -275,12 +158,7 @@ public enum Instruction {
 	 * Biolume's genome will be executed in the next step. Otherwise, the next
 	 * instruction will be skipped.   
 	 */
-	IF_TOUCH {
-		public void execute(Biolume b) {
-			if (!b.getDetection(CC.TOUCH, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_TOUCH,
 	
 	/**
 	 * @Instruction: Execute next instruction if touch NOT sensed (IF_N_TOUCH).
@@ -289,12 +167,7 @@ public enum Instruction {
 	 * Biolume's genome will be skipped. Otherwise, the next instruction will
 	 * be executed in the next step.  
 	 */
-	IF_N_TOUCH {
-		public void execute(Biolume b) {
-			if (b.getDetection(CC.TOUCH, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_N_TOUCH,
 	
 	/**
 	 * @Instruction: Execute next instruction if CO2 NOT sensed (IF_N_CO2).
@@ -303,12 +176,7 @@ public enum Instruction {
 	 * Biolume's genome will be executed in the next step. Otherwise, the next
 	 * instruction will be skipped.  
 	 */
-	IF_CO2 {
-		public void execute(Biolume b) {
-			if (!b.getDetection(CC.CO2, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_CO2,
 	
 	/**
 	 * @Instruction: Execute next instruction if CO2 NOT sensed (IF_N_CO2).
@@ -317,12 +185,7 @@ public enum Instruction {
 	 * Biolume's genome will be skipped. Otherwise, the next instruction will
 	 * be executed in the next step.  
 	 */
-	IF_N_CO2 {
-		public void execute(Biolume b) {
-			if (b.getDetection(CC.CO2, CC.LONG)) b.incPC();
-			return;
-		}
-	},
+	IF_N_CO2,
 	
 	/**
 	 * @Instruction: Execute next instruction if energy is LOW (IF_LO_ENERGY).
@@ -331,12 +194,7 @@ public enum Instruction {
 	 * Biolume's genome will be executed in the next step. Otherwise, the next
 	 * instruction will be skipped.
 	 */
-	IF_LO_ENERGY {
-		public void execute(Biolume b) {
-			if (b.getEnergy() < CC.ENERGY_MAX/2) b.incPC();
-			return;
-		}
-	},
+	IF_LO_ENERGY,
 	
 	/**
 	 * @Instruction: Execute next instruction if energy is HIGH (IF_HI_ENERGY).
@@ -345,12 +203,7 @@ public enum Instruction {
 	 * Biolume's genome will be executed in the next step. Otherwise, the next
 	 * instruction will be skipped.
 	 */
-	IF_HI_ENERGY {
-		public void execute(Biolume b) {
-			if (b.getEnergy() >= CC.ENERGY_MAX/2) b.incPC();
-			return;
-		}
-	},
+	IF_HI_ENERGY,
 	
 	/**
 	 * @Instruction: Label the next instruction as a target for a jump (LABEL).
@@ -358,12 +211,7 @@ public enum Instruction {
 	 * Biolume's genome as the target for a JUMP instruction executed in the
 	 * future.
 	 */
-	LABEL {
-		public void execute(Biolume b) {
-			b.setLabel();		
-			return;
-		}
-	},
+	LABEL,
 	
 	/**
 	 * @Instruction: Jump to the latest labeled instruction (JUMP).
@@ -372,12 +220,7 @@ public enum Instruction {
 	 * instruction in the Biolume's genome). Therefore, if no LABEL is executed
 	 * before the JUMP instruction, the PC will point to the first instruction.
 	 */
-	JUMP {
-		public void execute(Biolume b) {
-			b.jumpToLabel();		
-			return;
-		}
-	},
+	JUMP,
 	
 	/**
 	 * @Instruction: Attempt to reproduce (REPRO).
@@ -389,19 +232,30 @@ public enum Instruction {
 	 * CC.REPLACEMENT_METHOD. The energy passed on from the parent to the
 	 * offspring is defined by CC.REPLICATION_METHOD.
 	 */
-	REPRODUCE {
-		public void execute(Biolume b) {
-			double repro_prob = (b.getEnergy() / CC.ENERGY_MAX) * (CC.REPRO_PROB_MAX - CC.REPRO_PROB_MIN) + CC.REPRO_PROB_MIN;
-			if (repro_prob > Biolume.RAND.nextDouble()) {
-				b.parentReproduce();
-			}			
-			return;
-		}
-	};
+	REPRODUCE;
 	
-	// Public method to access each instruction.
-	public abstract void execute(Biolume b);
+	// Cached copy of values() (values() clones the array on every call).
+	private static final Instruction[] VALUES = Instruction.values();
 	
 	// Calculate the size of this instruction set. 
-	public static final int INST_SET_SIZE = Instruction.values().length;
+	public static final int INST_SET_SIZE = VALUES.length;
+	
+	/**
+	 * This method executes this instruction on the given Biolume. The actual
+	 * behavior of every instruction lives in the Interpreter.
+	 * @param b:	The Biolume executing this instruction.
+	 */
+	public void execute(Biolume b) {
+		Interpreter.execute(b, this.ordinal());
+	}
+	
+	/**
+	 * This method translates an opcode, as encoded in a Biolume genome, into
+	 * its instruction.
+	 * @param opcode:	The opcode (the instruction's ordinal).
+	 * @return:	The instruction encoded by the opcode.
+	 */
+	public static Instruction fromOpcode(int opcode) {
+		return VALUES[opcode];
+	}
 }
@@ -0,0 +1,195 @@
+/**
+ * Interpreter.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file contains the core of the Biolume instruction
+ * interpreter. Instructions are dispatched on their opcode (the ordinal of
+ * the corresponding Instruction) through a single dense switch, instead of
+ * a virtual call on one of the Instruction constants.
+ * - The Instruction enumeration remains the opcode vocabulary. The opcode
+ * constants below mirror its order, which is verified when this class is
+ * loaded.
+ */
+public final class Interpreter {
+
+    /**************************************************************************
+     * Opcodes (must match Instruction.ordinal()).
+     */
+
+	public static final int OP_NOP = 0;
+	public static final int OP_LED0_ON = 1;
+	public static final int OP_LED0_OFF = 2;
+	public static final int OP_LED0_TOGGLE = 3;
+	public static final int OP_LED1_ON = 4;
+	public static final int OP_LED1_OFF = 5;
+	public static final int OP_LED1_TOGGLE = 6;
+	public static final int OP_SPEAKER_ON = 7;
+	public static final int OP_SPEAKER_OFF = 8;
+	public static final int OP_BUFFER_SET_DATA = 9;
+	public static final int OP_BUFFER_GET_DATA = 10;
+	public static final int OP_MESSAGE_SEND = 11;
+	public static final int OP_MESSAGE_RETRIEVE = 12;
+	public static final int OP_IF_MOTION = 13;
+	public static final int OP_IF_N_MOTION = 14;
+	public static final int OP_IF_SOUND = 15;
+	public static final int OP_IF_N_SOUND = 16;
+	public static final int OP_IF_TOUCH = 17;
+	public static final int OP_IF_N_TOUCH = 18;
+	public static final int OP_IF_CO2 = 19;
+	public static final int OP_IF_N_CO2 = 20;
+	public static final int OP_IF_LO_ENERGY = 21;
+	public static final int OP_IF_HI_ENERGY = 22;
+	public static final int OP_LABEL = 23;
+	public static final int OP_JUMP = 24;
+	public static final int OP_REPRODUCE = 25;
+
+	// Make sure the opcodes above did not drift from the Instruction order.
+	static {
+		String[] names = {
+			"NOP", "LED0_ON", "LED0_OFF", "LED0_TOGGLE", "LED1_ON", "LED1_OFF",
+			"LED1_TOGGLE", "SPEAKER_ON", "SPEAKER_OFF", "BUFFER_SET_DATA",
+			"BUFFER_GET_DATA", "MESSAGE_SEND", "MESSAGE_RETRIEVE", "IF_MOTION",
+			"IF_N_MOTION", "IF_SOUND", "IF_N_SOUND", "IF_TOUCH", "IF_N_TOUCH",
+			"IF_CO2", "IF_N_CO2", "IF_LO_ENERGY", "IF_HI_ENERGY", "LABEL", "JUMP",
+			"REPRODUCE"
+		};
+		if (names.length != Instruction.INST_SET_SIZE)
+			throw new IllegalStateException("Interpreter opcodes do not match the instruction set.");
+		for (int op = 0; op < names.length; op++)
+			if (!Instruction.fromOpcode(op).name().equals(names[op]))
+				throw new IllegalStateException("Interpreter opcode " + op + " is not " + Instruction.fromOpcode(op));
+	}
+
+	// This class only contains static methods.
+	private Interpreter() {
+	}
+
+    /**************************************************************************
+     * Interpreter methods.
+     */
+
+	/**
+	 * This method executes a single instruction on the given Biolume. See the
+	 * Instruction enumeration for a description of every instruction.
+	 * @param b:	The Biolume executing the instruction.
+	 * @param opcode:	The opcode of the instruction to execute.
+	 */
+	public static void execute(Biolume b, int opcode) {
+
+		SimConfig c = b.getConfig();
+
+		switch (opcode) {
+
+		case OP_NOP:
+			return;
+
+		case OP_LED0_ON:
+			b.setLED0(true);
+			return;
+
+		case OP_LED0_OFF:
+			b.setLED0(false);
+			return;
+
+		case OP_LED0_TOGGLE:
+			b.toggleLED0();
+			return;
+
+		case OP_LED1_ON:
+			b.setLED1(true);
+			return;
+
+		case OP_LED1_OFF:
+			b.setLED1(false);
+			return;
+
+		case OP_LED1_TOGGLE:
+			b.toggleLED1();
+			return;
+
+		case OP_SPEAKER_ON:
+			b.setSpeaker(true);
+			return;
+
+		case OP_SPEAKER_OFF:
+			b.setSpeaker(false);
+			return;
+
+		case OP_BUFFER_SET_DATA:
+			b.displayToBuffer();
+			return;
+
+		case OP_BUFFER_GET_DATA:
+			b.bufferToDisplay();
+			return;
+
+		case OP_MESSAGE_SEND:
+			b.broadcastNeighborhood();
+			return;
+
+		case OP_MESSAGE_RETRIEVE:
+			b.messageToBuffer();
+			return;
+
+		// Conditionals: skip the next instruction if the condition is not met.
+		case OP_IF_MOTION:
+			if (!b.getDetection(CC.MOTION, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_N_MOTION:
+			if (b.getDetection(CC.MOTION, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_SOUND:
+			if (!b.getDetection(CC.SOUND, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_N_SOUND:
+			if (b.getDetection(CC.SOUND, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_TOUCH:
+			if (!b.getDetection(CC.TOUCH, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_N_TOUCH:
+			if (b.getDetection(CC.TOUCH, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_CO2:
+			if (!b.getDetection(CC.CO2, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_N_CO2:
+			if (b.getDetection(CC.CO2, CC.LONG)) b.incPC();
+			return;
+
+		case OP_IF_LO_ENERGY:
+			if (b.getEnergy() < c.energy_max/2) b.incPC();
+			return;
+
+		case OP_IF_HI_ENERGY:
+			if (b.getEnergy() >= c.energy_max/2) b.incPC();
+			return;
+
+		case OP_LABEL:
+			b.setLabel();
+			return;
+
+		case OP_JUMP:
+			b.jumpToLabel();
+			return;
+
+		case OP_REPRODUCE: {
+			double repro_prob = (b.getEnergy() / c.energy_max) * (c.repro_prob_max - c.repro_prob_min) + c.repro_prob_min;
+			if (repro_prob > b.nextRandom()) {
+				b.parentReproduce();
+			}
+			return;
+		}
+
+		default:
+			throw new IllegalArgumentException("Unknown opcode: " + opcode);
+		}
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ * PhylogenyTracker.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the phylogeny of a population at the
+ * genotype level. Every genotype that appears gets a taxon recording the
+ * genotype it descends from (the parent's genotype at the birth that
+ * produced it), the step it appeared at, and how its genome differs from
+ * the parent's.
+ * - Taxa are pruned as soon as they can no longer be an ancestor of a
+ * living Biolume: each taxon counts one reference while its genotype is
+ * alive, plus one per retained child taxon, and is dropped (releasing its
+ * parent in turn) when the count reaches zero. Memory therefore stays
+ * proportional to the living genotypes plus their ancestral spine, however
+ * long the run.
+ * - The tracker is driven by GenotypeRegistry, whose lock it relies on.
+ */
+
+import java.io.PrintStream;
+
+public class PhylogenyTracker {
+
+    /**************************************************************************
+     * Phylogeny tracker parameters.
+     */
+
+	/**
+	 * A genotype of the phylogeny (alive, or the ancestor of a living one).
+	 */
+	public static final class Taxon {
+
+		// Genotype number (see GenotypeRegistry.Genotype) and genome.
+		private final long id;
+		private final Genome genome;
+
+		// Genotype this one descends from (null for a founder).
+		private final Taxon parent;
+
+		// Step at which the genotype appeared.
+		private final long origin_step;
+
+		// Differences with the parent's genome: instructions replaced,
+		// inserted and deleted, and variables changed.
+		private final int copies;
+		private final int insertions;
+		private final int deletions;
+		private final int variable_changes;
+
+		// References keeping this taxon: 1 while alive + retained children.
+		private int refs;
+		private boolean alive;
+
+		// Neighbors in the list of retained taxa.
+		private Taxon prev;
+		private Taxon next;
+
+		private Taxon(long id, Genome genome, Taxon parent, long origin_step, Genome.Editor mutations) {
+			this.id = id;
+			this.genome = genome;
+			this.parent = parent;
+			this.origin_step = origin_step;
+			this.copies = (mutations == null) ? 0 : mutations.copies();
+			this.insertions = (mutations == null) ? 0 : mutations.insertions();
+			this.deletions = (mutations == null) ? 0 : mutations.deletions();
+			this.variable_changes = (mutations == null) ? 0 : mutations.variableChanges();
+		}
+
+		public long getId() {
+			return this.id;
+		}
+
+		public Genome getGenome() {
+			return this.genome;
+		}
+
+		public Taxon getParent() {
+			return this.parent;
+		}
+
+		public long getOriginStep() {
+			return this.origin_step;
+		}
+
+		public int getCopies() {
+			return this.copies;
+		}
+
+		public int getInsertions() {
+			return this.insertions;
+		}
+
+		public int getDeletions() {
+			return this.deletions;
+		}
+
+		public int getVariableChanges() {
+			return this.variable_changes;
+		}
+
+		public boolean isAlive() {
+			return this.alive;
+		}
+
+		/**
+		 * @return:	The amount of ancestors of this taxon.
+		 */
+		public int depth() {
+			int d = 0;
+			for (Taxon t = this.parent; t != null; t = t.parent) d++;
+			return d;
+		}
+	}
+
+	// Retained taxa, newest first.
+	private Taxon newest = null;
+
+	// Amount of retained and living taxa.
+	private int retained = 0;
+	private int living = 0;
+
+    /**************************************************************************
+     * Phylogeny tracker methods.
+     */
+
+	/**
+	 * This method records a new genotype.
+	 * @param id:	The genotype number.
+	 * @param genome:	The genotype's genome.
+	 * @param parent:	The taxon of the parent's genotype (null for a founder).
+	 * @param step:	The current step.
+	 * @param mutations:	The editor that produced the genome from the
+	 * parent's (null for a founder).
+	 * @return:	The taxon of the new genotype.
+	 */
+	Taxon originate(long id, Genome genome, Taxon parent, long step, Genome.Editor mutations) {
+		Taxon t = new Taxon(id, genome, parent, step, mutations);
+		t.alive = true;
+		t.refs = 1;
+		if (parent != null) parent.refs++;
+
+		t.next = this.newest;
+		if (this.newest != null) this.newest.prev = t;
+		this.newest = t;
+
+		this.retained++;
+		this.living++;
+		return t;
+	}
+
+	/**
+	 * This method records the extinction of a genotype, pruning every taxon
+	 * that is no longer the ancestor of a living genotype.
+	 * @param t:	The taxon of the extinct genotype.
+	 */
+	void extinct(Taxon t) {
+		t.alive = false;
+		this.living--;
+
+		// Release the taxon, and its ancestors as long as they are unused.
+		while (t != null && --t.refs == 0) {
+			if (t.prev != null) t.prev.next = t.next;
+			else this.newest = t.next;
+			if (t.next != null) t.next.prev = t.prev;
+			t.prev = t.next = null;
+			this.retained--;
+			t = t.parent;
+		}
+	}
+
+	/**
+	 * @return:	The amount of taxa in memory (living genotypes and ancestors).
+	 */
+	int retained() {
+		return this.retained;
+	}
+
+	/**
+	 * @return:	The amount of living genotypes.
+	 */
+	int living() {
+		return this.living;
+	}
+
+	/**
+	 * This method writes every retained taxon, newest first, as tab separated
+	 * rows: id, parent id (-1 for founders), origin step, alive, mutations
+	 * (copies, insertions, deletions, variable changes), and the genome's
+	 * instructions and variables.
+	 * @param out:	The stream to write to.
+	 */
+	void write(PrintStream out) {
+		out.println("id\tparent\torigin_step\talive\tcopies\tinsertions\tdeletions\tvariable_changes\tinstructions\tvariables");
+		for (Taxon t = this.newest; t != null; t = t.next) {
+			StringBuilder code = new StringBuilder();
+			for (int i = 0; i < t.genome.size(); i++)
+				code.append((i == 0) ? "" : " ").append(Instruction.fromOpcode(t.genome.opcode(i)));
+			StringBuilder vars = new StringBuilder();
+			for (int v = 0; v < Variable.NUM_VARS; v++)
+				vars.append((v == 0) ? "" : " ").append(t.genome.variable(v));
+			out.println(t.id + "\t" + ((t.parent == null) ? -1 : t.parent.id) + "\t" + t.origin_step + "\t" + t.alive
+					+ "\t" + t.copies + "\t" + t.insertions + "\t" + t.deletions + "\t" + t.variable_changes
+					+ "\t" + code + "\t" + vars);
+		}
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * PopulationSnapshot.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the hand-off of what a population shows
+ * (displays, energies and reproduction state) from the thread that steps the
+ * engine to the thread that draws it. The engine publishes a frame at every
+ * step boundary (see SimulationEngine.getSnapshot()), so a frame never mixes
+ * two steps.
+ * - Frames are triple buffered: the engine fills a spare frame and swaps it
+ * into the ready slot atomically; the renderer swaps its frame with the
+ * ready one whenever a newer one was published. Neither side ever waits for
+ * the other, a frame is never written while it is read, and frames are
+ * reused, so nothing is allocated after the first three.
+ * - There must be a single reader. Publishing is serialized, since the
+ * population may also be changed (and published) outside of a step.
+ */
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class PopulationSnapshot {
+
+    /**************************************************************************
+     * Population snapshot parameters.
+     */
+
+	/**
+	 * What a population showed at the end of a step.
+	 */
+	public static final class Frame {
+
+		// Dimensions of the population.
+		private final int x_size;
+		private final int y_size;
+
+		// Copies of the store's displays (stride Variable.NUM_VARS), energies,
+		// reproduction countdowns and offspring flags.
+		private final int[] display;
+		private final double[] energy;
+		private final int[] repro_countdown;
+		private final boolean[] is_offspring;
+
+		// Steps executed by the population when the frame was taken.
+		private long step;
+
+		// Published and not taken by the reader yet.
+		private volatile boolean fresh;
+
+		Frame(int x_size, int y_size) {
+			int cells = x_size * y_size;
+			this.x_size = x_size;
+			this.y_size = y_size;
+			this.display = new int[cells * Variable.NUM_VARS];
+			this.energy = new double[cells];
+			this.repro_countdown = new int[cells];
+			this.is_offspring = new boolean[cells];
+		}
+
+		/**
+		 * This method copies the state shown by a population.
+		 * @param store:	The state of the population.
+		 * @param step:	The amount of steps executed by the population.
+		 */
+		void copy(PopulationStore store, long step) {
+			System.arraycopy(store.display_current, 0, this.display, 0, this.display.length);
+			System.arraycopy(store.energy, 0, this.energy, 0, this.energy.length);
+			System.arraycopy(store.repro_countdown, 0, this.repro_countdown, 0, this.repro_countdown.length);
+			System.arraycopy(store.is_offspring, 0, this.is_offspring, 0, this.is_offspring.length);
+			this.step = step;
+		}
+
+		public int getXSize() {
+			return this.x_size;
+		}
+
+		public int getYSize() {
+			return this.y_size;
+		}
+
+		/**
+		 * @return:	The amount of steps executed when this frame was taken.
+		 */
+		public long getStep() {
+			return this.step;
+		}
+
+		/**
+		 * @param x:	The x coordinate of a Biolume.
+		 * @param y:	The y coordinate of a Biolume.
+		 * @param v:	A display variable.
+		 * @return:	The value displayed by the Biolume for the variable.
+		 */
+		public int getDisplay(int x, int y, Variable v) {
+			return this.display[(x * this.y_size + y) * Variable.NUM_VARS + v.ordinal()];
+		}
+
+		/**
+		 * @return:	True if the Biolume at (x, y) has its speaker on.
+		 */
+		public boolean speakerIsOn(int x, int y) {
+			return this.getDisplay(x, y, Variable.SPEAKER_STATE) == CC.ON;
+		}
+
+		/**
+		 * @return:	The energy of the Biolume at (x, y).
+		 */
+		public double getEnergy(int x, int y) {
+			return this.energy[x * this.y_size + y];
+		}
+
+		/**
+		 * @return:	The reproduction countdown of the Biolume at (x, y).
+		 */
+		public int getReproCountdown(int x, int y) {
+			return this.repro_countdown[x * this.y_size + y];
+		}
+
+		/**
+		 * @return:	True if the Biolume at (x, y) is reproducing.
+		 */
+		public boolean isReproducing(int x, int y) {
+			return this.getReproCountdown(x, y) > 0;
+		}
+
+		/**
+		 * @return:	True if the Biolume at (x, y) was born as an offspring.
+		 */
+		public boolean isOffspring(int x, int y) {
+			return this.is_offspring[x * this.y_size + y];
+		}
+	}
+
+	// The latest published frame (or the reader's previous one, once taken).
+	private final AtomicReference<Frame> ready;
+
+	// The frame filled by the next publish, and the frame being read.
+	private Frame back;
+	private Frame front;
+
+    /**************************************************************************
+     * Population snapshot methods.
+     */
+
+	/**
+	 * Population snapshot constructor.
+	 * @param x_size:	The x dimension of the population.
+	 * @param y_size:	The y dimension of the population.
+	 */
+	public PopulationSnapshot(int x_size, int y_size) {
+		this.ready = new AtomicReference<Frame>(new Frame(x_size, y_size));
+		this.back = new Frame(x_size, y_size);
+		this.front = new Frame(x_size, y_size);
+	}
+
+	/**
+	 * This method publishes the state shown by a population, replacing the
+	 * latest frame if the reader has not taken it yet.
+	 * @param store:	The state of the population.
+	 * @param step:	The amount of steps executed by the population.
+	 */
+	synchronized void publish(PopulationStore store, long step) {
+		this.back.copy(store, step);
+		this.back.fresh = true;
+		this.back = this.ready.getAndSet(this.back);
+	}
+
+	/**
+	 * This method returns the latest published frame. It stays unchanged
+	 * until the next call, and must only be called by the reader.
+	 * @return:	The latest frame.
+	 */
+	public Frame latest() {
+		if (this.ready.get().fresh) {
+			this.front = this.ready.getAndSet(this.front);
+			this.front.fresh = false;
+		}
+		return this.front;
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * PopulationStore.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the storage for the state of an entire
+ * Biolume population. Instead of every Biolume owning its own set of small
+ * arrays, each piece of state is kept in one flat primitive array indexed by
+ * cell id (x * y_size + y). Per-cell arrays (sensors, displays and buffers)
+ * are laid out back to back with a fixed stride. Genomes are immutable
+ * objects (see Genome.java) referenced from the store.
+ * - Biolume objects are lightweight views over one cell of this store.
+ */
+public class PopulationStore {
+
+    /**************************************************************************
+     * Layout parameters.
+     */
+
+	// Value of sensor_fired_at for a sensor that has not fired.
+	public static final int NEVER_FIRED = Integer.MIN_VALUE;
+
+    /**************************************************************************
+     * Population state (see Biolume.java for the meaning of each field).
+     */
+
+	// Amount of cells in the population.
+	final int size;
+
+	// Genomes, including instructions and variables. Genomes are immutable
+	// and shared between parents and offspring until one of them mutates.
+	final Genome[] genome;
+
+	// Live genotypes of the population (interns the genomes above).
+	final GenotypeRegistry genotypes;
+
+	// Pointers.
+	final int[] pc;
+	final int[] label;
+
+	// Flags (relevant only in the simulator, for display purposes).
+	final boolean[] is_offspring;
+	final boolean[] alt_step;
+
+	// Number of steps since each Biolume was replaced.
+	final int[] age;
+
+	// Energy acquired by each Biolume.
+	final double[] energy;
+
+	// Counters used to determine each Biolume's reproduction status.
+	final int[] repro_countdown;
+
+	// Age at which each sensor last fired (stride CC.NUM_SENSORS).
+	final int[] sensor_fired_at;
+
+	// Current/previous displays and buffers (stride Variable.NUM_VARS).
+	final int[] display_current;
+	final int[] display_previous;
+	final int[] display_buffer;
+
+	// Last message each Biolume sent (stride Variable.NUM_VARS), the message
+	// clock at which it was sent (0 = never), and the message clock at which
+	// each Biolume was born. Receivers pull from their neighbors' outboxes.
+	final int[] outbox;
+	final long[] outbox_version;
+	final long[] born_at;
+
+    /**************************************************************************
+     * Population store methods.
+     */
+
+	/**
+	 * Population store constructor. All state starts zeroed.
+	 * @param size:	The amount of cells in the population.
+	 */
+	public PopulationStore(int size) {
+		this.size = size;
+		this.genome = new Genome[size];
+		this.genotypes = new GenotypeRegistry(size);
+		this.pc = new int[size];
+		this.label = new int[size];
+		this.is_offspring = new boolean[size];
+		this.alt_step = new boolean[size];
+		this.age = new int[size];
+		this.energy = new double[size];
+		this.repro_countdown = new int[size];
+		this.sensor_fired_at = new int[size * CC.NUM_SENSORS];
+		this.display_current = new int[size * Variable.NUM_VARS];
+		this.display_previous = new int[size * Variable.NUM_VARS];
+		this.display_buffer = new int[size * Variable.NUM_VARS];
+		this.outbox = new int[size * Variable.NUM_VARS];
+		this.outbox_version = new long[size];
+		this.born_at = new long[size];
+	}
+
+	/**
+	 * @return:	The amount of cells in the population.
+	 */
+	public int size() {
+		return this.size;
+	}
+}
@@ -0,0 +1,95 @@
+/**
+ * PressureKernel.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the fitness kernel of the global color
+ * pressures: for every Biolume of a population at once, how close one of its
+ * LEDs is to a target color (see SimulationEngine.globalColorPressure()). It
+ * works straight on the store's display array, so nothing is allocated.
+ * - This is the scalar kernel. create() returns the vectorised kernel
+ * (VectorPressureKernel, built from the simd folder with the JDK Vector API)
+ * when it was compiled and the JVM runs with the jdk.incubator.vector
+ * module, and this one otherwise. Both give bit-identical results: they
+ * perform the same float operations in the same order.
+ */
+public class PressureKernel {
+
+	/**
+	 * This method creates the fastest kernel available.
+	 * @return:	The vectorised kernel if available, the scalar one otherwise.
+	 */
+	public static PressureKernel create() {
+		try {
+			return (PressureKernel) Class.forName("VectorPressureKernel").getDeclaredConstructor().newInstance();
+		}
+		catch (ReflectiveOperationException | LinkageError e) {
+			// Not compiled, or the Vector API module is missing.
+			return new PressureKernel();
+		}
+	}
+
+	/**
+	 * @return:	The name of this kernel.
+	 */
+	public String name() {
+		return "scalar";
+	}
+
+	/**
+	 * This method calculates the fitness of one LED of every Biolume: the
+	 * maximum color distance minus the distance between the LED's displayed
+	 * color and the target (0 if the LED is off). The distance is Euclidean
+	 * in HSB, with the hue distance wrapped around (it can only be as large
+	 * as halfway) and doubled to keep scale with S and B.
+	 * @param display:	The displays of the population (stride
+	 * Variable.NUM_VARS, see PopulationStore.display_current).
+	 * @param first:	The ordinal of the LED's hue variable (LED0_H or
+	 * LED1_H); saturation, brightness and state follow it.
+	 * @param target:	The HSB values of the target color.
+	 * @param cells:	The amount of Biolumes.
+	 * @param fitness:	The array that receives the fitness of each Biolume.
+	 */
+	public void fitness(int[] display, int first, float[] target, int cells, float[] fitness) {
+		this.fitness(display, first, target, 0, cells, fitness);
+	}
+
+	/**
+	 * This method calculates the fitness of the Biolumes from..to-1 (see
+	 * fitness() above).
+	 */
+	protected final void fitness(int[] display, int first, float[] target, int from, int to, float[] fitness) {
+		for (int id = from; id < to; id++)
+			fitness[id] = fitness(display, id * Variable.NUM_VARS + first, target);
+	}
+
+	/**
+	 * This method calculates the fitness of some of the Biolumes only (see
+	 * fitness() above).
+	 * @param ids:	The Biolumes.
+	 * @param count:	The amount of Biolumes in ids.
+	 */
+	public final void fitness(int[] display, int first, float[] target, int[] ids, int count, float[] fitness) {
+		for (int i = 0; i < count; i++)
+			fitness[ids[i]] = fitness(display, ids[i] * Variable.NUM_VARS + first, target);
+	}
+
+	/**
+	 * @param display:	The displays of the population.
+	 * @param d:	The offset of the LED's hue in display.
+	 * @param target:	The HSB values of the target color.
+	 * @return:	The fitness of the LED.
+	 */
+	private static float fitness(int[] display, int d, float[] target) {
+		if (display[d + 3] != CC.ON) return 0; // LED is off-- no reward.
+
+		float dh = target[0] - display[d];
+		float ds = target[1] - display[d + 1];
+		float db = target[2] - display[d + 2];
+
+		// Hue is circular, thus, distances can only be as large as halfway.
+		if (Math.abs(dh) > CC.MAX_VAR/2) dh = CC.MAX_VAR - Math.abs(dh);
+		dh *= 2.0f;
+
+		return CC.MAX_DIST - (float) Math.sqrt(dh*dh + ds*ds + db*db);
+	}
+}
@@ -0,0 +1,147 @@
+/**
+ * RandomStreams.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the random number service of a
+ * simulation. Instead of one shared generator, it holds a set of independent
+ * streams (one per cell plus one for the engine), all derived from a single
+ * master seed. A stream is only ever advanced by its owner, so threads never
+ * contend on a generator and a seeded run draws the same numbers no matter
+ * how the cells are spread across threads.
+ * - Every stream is a SplitMix64 generator (Steele, Lea & Flood, "Fast
+ * Splittable Pseudorandom Number Generators", OOPSLA 2014): a 64 bit counter
+ * advanced by a fixed odd increment and scrambled on output. Streams are
+ * split off the master seed the same way, so nearby seeds and nearby stream
+ * indices still produce unrelated sequences.
+ * - A stream is not thread-safe; the owner of a stream must not be stepped by
+ * two threads at once (see GridColoring.java).
+ * - The states of the streams are a cache line apart, so threads stepping
+ * neighbouring cells do not invalidate each other's line at every draw.
+ */
+public class RandomStreams {
+
+    /**************************************************************************
+     * Random streams parameters.
+     */
+
+	// SplitMix64 increment (the odd integer closest to 2^64 / golden ratio).
+	private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+	// Longs from the state of a stream to the next (64 bytes, a cache line).
+	private static final int STRIDE = 8;
+
+	// Current state of every stream, every STRIDE longs.
+	private final long[] state;
+
+    /**************************************************************************
+     * Random streams methods.
+     */
+
+	/**
+	 * Random streams constructor.
+	 * @param seed:	The master seed.
+	 * @param count:	The amount of independent streams.
+	 */
+	public RandomStreams(long seed, int count) {
+		this.state = new long[count * STRIDE];
+		long master = mix64(seed);
+		for (int i = 0; i < count; i++)
+			this.state[i * STRIDE] = mix64(master + (i + 1) * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * This method combines a master seed with the number of a population
+	 * generated from it (see SimulationEngine.initializePopulation()). The
+	 * generation is scrambled before it is mixed in, and the constructor
+	 * scrambles the result again, so the streams of seed s, generation g are
+	 * unrelated to those of any nearby seed; in particular, a restarted
+	 * population never replays the streams of the next replicate seed. The
+	 * first generation keeps the streams of the seed itself.
+	 * @param seed:	The master seed of the simulation.
+	 * @param generation:	The number of the population (0 for the first).
+	 * @return:	The master seed of that population's streams.
+	 */
+	public static long derive(long seed, long generation) {
+		return seed ^ mix64(generation * GOLDEN_GAMMA);
+	}
+
+	/**
+	 * This method scrambles a 64 bit value (SplitMix64 output function).
+	 * @param z:	The value to scramble.
+	 * @return:	The scrambled value.
+	 */
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * @return:	The amount of independent streams.
+	 */
+	public int count() {
+		return this.state.length / STRIDE;
+	}
+
+	/**
+	 * This method draws the next 64 random bits of a stream.
+	 * @param stream:	The stream to draw from.
+	 * @return:	A uniformly distributed long.
+	 */
+	public long nextLong(int stream) {
+		return mix64(this.state[stream * STRIDE] += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * This method draws an int in [0, bound) from a stream. The range is
+	 * reduced with a multiplication (Lemire), whose bias (at most bound / 2^32)
+	 * is negligible for the small bounds used by the simulation.
+	 * @param stream:	The stream to draw from.
+	 * @param bound:	The upper bound (exclusive), must be positive.
+	 * @return:	A uniformly distributed int in [0, bound).
+	 */
+	public int nextInt(int stream, int bound) {
+		return (int) (((this.nextLong(stream) >>> 32) * bound) >>> 32);
+	}
+
+	/**
+	 * This method draws a double in [0, 1) from a stream.
+	 * @param stream:	The stream to draw from.
+	 * @return:	A uniformly distributed double in [0, 1).
+	 */
+	public double nextDouble(int stream) {
+		return (this.nextLong(stream) >>> 11) * 0x1.0p-53;
+	}
+
+	/**
+	 * This method draws a normally distributed double (mean 0, standard
+	 * deviation 1) from a stream using the polar method. The second value of
+	 * each pair is discarded, so no hidden state is kept outside the stream.
+	 * @param stream:	The stream to draw from.
+	 * @return:	A normally distributed double.
+	 */
+	public double nextGaussian(int stream) {
+		double v1, v2, s;
+		do {
+			v1 = 2 * this.nextDouble(stream) - 1;
+			v2 = 2 * this.nextDouble(stream) - 1;
+			s = v1 * v1 + v2 * v2;
+		} while (s >= 1 || s == 0);
+		return v1 * Math.sqrt(-2 * Math.log(s) / s);
+	}
+
+	/**
+	 * This method draws the amount of failed trials before the first success
+	 * of a sequence of independent trials (a geometric distribution), using a
+	 * single draw: floor(log(U) / log(1 - p)) with U uniform in (0, 1].
+	 * Skipping that many trials gives every trial success probability p.
+	 * @param stream:	The stream to draw from.
+	 * @param p:	The success probability of a trial.
+	 * @return:	The amount of failures (Integer.MAX_VALUE if p <= 0).
+	 */
+	public int nextGeometric(int stream, double p) {
+		if (p >= 1) return 0;
+		if (p <= 0) return Integer.MAX_VALUE;
+		return (int) Math.min(Math.floor(Math.log(1.0 - this.nextDouble(stream)) / Math.log1p(-p)), Integer.MAX_VALUE);
+	}
+}
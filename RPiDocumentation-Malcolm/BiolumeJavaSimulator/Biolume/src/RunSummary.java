@@ -0,0 +1,89 @@
+/**
+ * RunSummary.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the summary statistics of a finished
+ * simulation run: how long it took and the state of its final population.
+ */
+public class RunSummary {
+
+    /**************************************************************************
+     * Run summary parameters.
+     */
+
+	// Run identification.
+	public final long seed;
+	public final int steps;
+
+	// Wall clock time spent stepping (in seconds).
+	public final double seconds;
+
+	// Mean energy and executable genome size of the final population.
+	public final double mean_energy;
+	public final double mean_genome_size;
+
+	// Fraction of the final population displaying each actuator.
+	public final double led0_on;
+	public final double led1_on;
+	public final double speaker_on;
+
+	// Amount of distinct genotypes, and share of the most abundant one.
+	public final int genotypes;
+	public final double dominant_share;
+
+    /**************************************************************************
+     * Run summary methods.
+     */
+
+	/**
+	 * Run summary constructor. The final population is summarized right away.
+	 * @param engine:	The engine of the finished run.
+	 * @param seed:	The seed of the run.
+	 * @param steps:	The amount of steps executed.
+	 * @param seconds:	The time spent stepping, in seconds.
+	 */
+	public RunSummary(SimulationEngine engine, long seed, int steps, double seconds) {
+		this.seed = seed;
+		this.steps = steps;
+		this.seconds = seconds;
+
+		SimConfig cfg = engine.getConfig();
+		double energy = 0, exe_size = 0, led0 = 0, led1 = 0, speaker = 0;
+		for (int i = 0; i < cfg.x_size; i++)
+			for (int j = 0; j < cfg.y_size; j++) {
+				Biolume b = engine.getBiolume(i, j);
+				energy += b.getEnergy();
+				exe_size += b.getGenome().length;
+				if (b.LED0IsOn()) led0++;
+				if (b.LED1IsOn()) led1++;
+				if (b.speakerIsOn()) speaker++;
+			}
+		int cells = cfg.x_size * cfg.y_size;
+
+		this.mean_energy = energy / cells;
+		this.mean_genome_size = exe_size / cells;
+		this.led0_on = led0 / cells;
+		this.led1_on = led1 / cells;
+		this.speaker_on = speaker / cells;
+
+		GenotypeRegistry registry = engine.getGenotypes();
+		this.genotypes = registry.distinct();
+		this.dominant_share = (double) registry.dominant().getAbundance() / cells;
+	}
+
+	/**
+	 * @return:	The names of the columns written by toRow().
+	 */
+	public static String header() {
+		return "seed\tsteps\tseconds\tmean_energy\tmean_genome_size\tled0_on\tled1_on\tspeaker_on\tgenotypes\tdominant_share";
+	}
+
+	/**
+	 * @return:	This summary as a tab separated row.
+	 */
+	public String toRow() {
+		return this.seed + "\t" + this.steps + "\t" + (float) this.seconds + "\t" + (float) this.mean_energy
+				+ "\t" + (float) this.mean_genome_size + "\t" + (float) this.led0_on + "\t" + (float) this.led1_on
+				+ "\t" + (float) this.speaker_on + "\t" + this.genotypes + "\t" + (float) this.dominant_share;
+	}
+}
@@ -0,0 +1,328 @@
+/**
+ * SimConfig.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the immutable configuration of one
+ * simulation: grid dimensions, reproduction, mutation, sensor and energy
+ * parameters, and how the population is stepped. A SimulationEngine is
+ * constructed with a configuration and reads every such parameter from it,
+ * so engines with different configurations can run side by side in one JVM.
+ * - Defaults are the values in CC.java. A configuration can be loaded from a
+ * properties file and/or "key=value" command line arguments, where keys are
+ * the lower case names of the CC constants (e.g. x_size=1000, co2_range=2,
+ * replacement_target=NGHBR_OLDEST). Unknown keys are rejected.
+ * - Genome size limits (CC.EXE_SIZE_*), CC.MAX_VAR and the GUI dimensions
+ * remain compile-time constants, since they fix the layout of the population
+ * store and of the display.
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+public final class SimConfig {
+
+    /**************************************************************************
+     * Grid.
+     */
+
+	// Dimensions of the population.
+	public final int x_size;
+	public final int y_size;
+
+    /**************************************************************************
+     * Reproduction.
+     */
+
+	// Probabilities of executing a successful reproduction process.
+	public final double repro_prob_min;
+	public final double repro_prob_max;
+
+	// Replacement and replication methods (CC enumerations).
+	public final int replacement_target;
+	public final int replication_method;
+
+	// Mutation rates.
+	public final double mut_prob_copy;
+	public final double mut_prob_insert;
+	public final double mut_prob_delete;
+
+	// Steps to skip while reproducing.
+	public final int repro_countdown;
+
+    /**************************************************************************
+     * Sensor management.
+     */
+
+	// Range of Biolumes affected by an activity in hops.
+	public final int touch_range;
+	public final int motion_range;
+	public final int sound_range;
+	public final int co2_range;
+
+	// Amount of silenced steps before a sound is considered new.
+	public final int new_sound_delay;
+
+	// Amount of steps before a Biolume 'forgets' it detected an activity.
+	public final int long_term_duration;
+
+    /**************************************************************************
+     * Energy management.
+     */
+
+	// Maximum energy, energy awarded per sensed activity, and decay per step.
+	public final double energy_max;
+	public final double co2_energy;
+	public final double normal_sound_energy;
+	public final double new_sound_energy;
+	public final double motion_energy;
+	public final double touch_energy;
+	public final double energy_decay;
+
+	// How the fitness under the global pressures is found (CC enumeration).
+	public final int pressure_fitness;
+
+    /**************************************************************************
+     * Stepping.
+     */
+
+	// Step mode (CC.SERIAL or CC.PARALLEL), threads, and parallel task size.
+	public final int step_mode;
+	public final int step_threads;
+	public final int step_grain;
+
+    /**************************************************************************
+     * Configuration methods.
+     */
+
+	/**
+	 * Configuration constructor. Every parameter missing from the properties
+	 * takes its default value. Energy rewards and decay default to the same
+	 * proportion of energy_max as in CC, and the insertion and deletion rates
+	 * default to mut_prob_copy / CC.MUT_INDEL_RATIO.
+	 * @param p:	The properties to read.
+	 * @throws:	IllegalArgumentException if a key is unknown or a value is
+	 * malformed or out of range.
+	 */
+	private SimConfig(Properties p) {
+
+		Set<String> used = new HashSet<String>();
+
+		this.x_size = getInt(p, used, "x_size", CC.X_SIZE);
+		this.y_size = getInt(p, used, "y_size", CC.Y_SIZE);
+
+		this.repro_prob_min = getDouble(p, used, "repro_prob_min", CC.REPRO_PROB_MIN);
+		this.repro_prob_max = getDouble(p, used, "repro_prob_max", CC.REPRO_PROB_MAX);
+		this.replacement_target = getEnum(p, used, "replacement_target", CC.REPLACEMENT_TARGET,
+				new String[] {"NGHBR_OLDEST", "NGHBR_LOWEST_ENERGY"},
+				new int[] {CC.NGHBR_OLDEST, CC.NGHBR_LOWEST_ENERGY});
+		this.replication_method = getEnum(p, used, "replication_method", CC.REPLICATION_METHOD,
+				new String[] {"ON_YOUR_OWN", "SPLIT_ENERGY"},
+				new int[] {CC.ON_YOUR_OWN, CC.SPLIT_ENERGY});
+		this.mut_prob_copy = getDouble(p, used, "mut_prob_copy", CC.MUT_PROB_COPY);
+		this.mut_prob_insert = getDouble(p, used, "mut_prob_insert", this.mut_prob_copy / CC.MUT_INDEL_RATIO);
+		this.mut_prob_delete = getDouble(p, used, "mut_prob_delete", this.mut_prob_copy / CC.MUT_INDEL_RATIO);
+		this.repro_countdown = getInt(p, used, "repro_countdown", CC.REPRO_COUNTDOWN);
+
+		this.touch_range = getInt(p, used, "touch_range", CC.TOUCH_RANGE);
+		this.motion_range = getInt(p, used, "motion_range", CC.MOTION_RANGE);
+		this.sound_range = getInt(p, used, "sound_range", CC.SOUND_RANGE);
+		this.co2_range = getInt(p, used, "co2_range", CC.CO2_RANGE);
+		this.new_sound_delay = getInt(p, used, "new_sound_delay", CC.NEW_SOUND_DELAY);
+		this.long_term_duration = getInt(p, used, "long_term_duration", CC.LONG_TERM_DURATION);
+
+		this.energy_max = getDouble(p, used, "energy_max", CC.ENERGY_MAX);
+		double scale = this.energy_max / CC.ENERGY_MAX;
+		this.co2_energy = getDouble(p, used, "co2_energy", CC.CO2_ENERGY * scale);
+		this.normal_sound_energy = getDouble(p, used, "normal_sound_energy", CC.NORMAL_SOUND_ENERGY * scale);
+		this.new_sound_energy = getDouble(p, used, "new_sound_energy", CC.NEW_SOUND_ENERGY * scale);
+		this.motion_energy = getDouble(p, used, "motion_energy", CC.MOTION_ENERGY * scale);
+		this.touch_energy = getDouble(p, used, "touch_energy", CC.TOUCH_ENERGY * scale);
+		this.energy_decay = getDouble(p, used, "energy_decay", CC.ENERGY_DECAY * scale);
+		this.pressure_fitness = getEnum(p, used, "pressure_fitness", CC.PRESSURE_FITNESS,
+				new String[] {"KERNEL", "DISPLAY_CYCLES"},
+				new int[] {CC.KERNEL, CC.DISPLAY_CYCLES});
+
+		this.step_mode = getEnum(p, used, "step_mode", CC.STEP_MODE,
+				new String[] {"SERIAL", "PARALLEL"},
+				new int[] {CC.SERIAL, CC.PARALLEL});
+		this.step_threads = getInt(p, used, "step_threads", CC.STEP_THREADS);
+		this.step_grain = getInt(p, used, "step_grain", CC.STEP_GRAIN);
+
+		// Reject typos instead of silently running with a default.
+		for (String key : p.stringPropertyNames())
+			if (!used.contains(key))
+				throw new IllegalArgumentException("Unknown configuration key: " + key);
+
+		this.validate();
+	}
+
+	/**
+	 * This method checks that every parameter is within its legal range.
+	 * @throws:	IllegalArgumentException if a parameter is out of range.
+	 */
+	private void validate() {
+		check(this.x_size >= 1 && this.y_size >= 1, "grid dimensions must be positive");
+		check((long) this.x_size * this.y_size * Variable.NUM_VARS <= Integer.MAX_VALUE, "grid is too large");
+		check(isProbability(this.repro_prob_min) && isProbability(this.repro_prob_max), "repro_prob_* must be in [0, 1]");
+		check(isProbability(this.mut_prob_copy) && isProbability(this.mut_prob_insert)
+				&& isProbability(this.mut_prob_delete), "mut_prob_* must be in [0, 1]");
+		check(this.repro_countdown >= 0, "repro_countdown must not be negative");
+		check(this.touch_range >= 0 && this.motion_range >= 0 && this.sound_range >= 0
+				&& this.co2_range >= 0, "*_range must not be negative");
+		check(this.new_sound_delay >= 0, "new_sound_delay must not be negative");
+		check(this.long_term_duration >= 1, "long_term_duration must be positive");
+		check(this.energy_max > 0, "energy_max must be positive");
+		check(this.step_threads >= 0, "step_threads must not be negative");
+		check(this.step_grain >= 1, "step_grain must be positive");
+	}
+
+	/**
+	 * @return:	The default configuration (the values in CC.java).
+	 */
+	public static SimConfig defaults() {
+		return new SimConfig(new Properties());
+	}
+
+	/**
+	 * This method loads a configuration from a properties file.
+	 * @param path:	The path of the properties file.
+	 * @return:	The configuration, with defaults for the missing keys.
+	 * @throws:	IOException if the file cannot be read.
+	 */
+	public static SimConfig load(String path) throws IOException {
+		return new SimConfig(readFile(path, new Properties()));
+	}
+
+	/**
+	 * This method builds a configuration from command line arguments of the
+	 * form "key=value". An argument "config=path" loads a properties file
+	 * first; the other arguments override its values.
+	 * @param args:	The arguments.
+	 * @return:	The configuration, with defaults for the missing keys.
+	 * @throws:	IOException if the configuration file cannot be read.
+	 */
+	public static SimConfig fromArgs(String[] args) throws IOException {
+		Properties p = new Properties();
+		for (String arg : args)
+			if (arg.startsWith("config=")) readFile(arg.substring("config=".length()), p);
+		for (String arg : args) {
+			int eq = arg.indexOf('=');
+			if (eq <= 0) throw new IllegalArgumentException("Expected key=value: " + arg);
+			if (!arg.startsWith("config=")) p.setProperty(arg.substring(0, eq).trim(), arg.substring(eq + 1).trim());
+		}
+		return new SimConfig(p);
+	}
+
+	/**
+	 * This method returns a copy of this configuration with some parameters
+	 * replaced.
+	 * @param overrides:	The parameters to replace ("key=value" pairs).
+	 * @return:	The new configuration.
+	 */
+	public SimConfig with(Properties overrides) {
+		Properties p = this.toProperties();
+		p.putAll(overrides);
+		return new SimConfig(p);
+	}
+
+	/**
+	 * @return:	Every parameter of this configuration, in a form that can be
+	 * loaded back.
+	 */
+	public Properties toProperties() {
+		Properties p = new Properties();
+		p.setProperty("x_size", Integer.toString(this.x_size));
+		p.setProperty("y_size", Integer.toString(this.y_size));
+		p.setProperty("repro_prob_min", Double.toString(this.repro_prob_min));
+		p.setProperty("repro_prob_max", Double.toString(this.repro_prob_max));
+		p.setProperty("replacement_target", (this.replacement_target == CC.NGHBR_OLDEST) ? "NGHBR_OLDEST" : "NGHBR_LOWEST_ENERGY");
+		p.setProperty("replication_method", (this.replication_method == CC.ON_YOUR_OWN) ? "ON_YOUR_OWN" : "SPLIT_ENERGY");
+		p.setProperty("mut_prob_copy", Double.toString(this.mut_prob_copy));
+		p.setProperty("mut_prob_insert", Double.toString(this.mut_prob_insert));
+		p.setProperty("mut_prob_delete", Double.toString(this.mut_prob_delete));
+		p.setProperty("repro_countdown", Integer.toString(this.repro_countdown));
+		p.setProperty("touch_range", Integer.toString(this.touch_range));
+		p.setProperty("motion_range", Integer.toString(this.motion_range));
+		p.setProperty("sound_range", Integer.toString(this.sound_range));
+		p.setProperty("co2_range", Integer.toString(this.co2_range));
+		p.setProperty("new_sound_delay", Integer.toString(this.new_sound_delay));
+		p.setProperty("long_term_duration", Integer.toString(this.long_term_duration));
+		p.setProperty("energy_max", Double.toString(this.energy_max));
+		p.setProperty("co2_energy", Double.toString(this.co2_energy));
+		p.setProperty("normal_sound_energy", Double.toString(this.normal_sound_energy));
+		p.setProperty("new_sound_energy", Double.toString(this.new_sound_energy));
+		p.setProperty("motion_energy", Double.toString(this.motion_energy));
+		p.setProperty("touch_energy", Double.toString(this.touch_energy));
+		p.setProperty("energy_decay", Double.toString(this.energy_decay));
+		p.setProperty("pressure_fitness", (this.pressure_fitness == CC.DISPLAY_CYCLES) ? "DISPLAY_CYCLES" : "KERNEL");
+		p.setProperty("step_mode", (this.step_mode == CC.PARALLEL) ? "PARALLEL" : "SERIAL");
+		p.setProperty("step_threads", Integer.toString(this.step_threads));
+		p.setProperty("step_grain", Integer.toString(this.step_grain));
+		return p;
+	}
+
+	@Override
+	public String toString() {
+		return new java.util.TreeMap<Object, Object>(this.toProperties()).toString();
+	}
+
+    /**************************************************************************
+     * Parsing helpers.
+     */
+
+	private static Properties readFile(String path, Properties p) throws IOException {
+		InputStream in = new FileInputStream(path);
+		try {
+			p.load(in);
+		}
+		finally {
+			in.close();
+		}
+		return p;
+	}
+
+	private static int getInt(Properties p, Set<String> used, String key, int def) {
+		used.add(key);
+		String value = p.getProperty(key);
+		if (value == null) return def;
+		try {
+			return Integer.parseInt(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad integer for " + key + ": " + value);
+		}
+	}
+
+	private static double getDouble(Properties p, Set<String> used, String key, double def) {
+		used.add(key);
+		String value = p.getProperty(key);
+		if (value == null) return def;
+		try {
+			return Double.parseDouble(value.trim());
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Bad number for " + key + ": " + value);
+		}
+	}
+
+	private static int getEnum(Properties p, Set<String> used, String key, int def, String[] names, int[] values) {
+		used.add(key);
+		String value = p.getProperty(key);
+		if (value == null) return def;
+		for (int i = 0; i < names.length; i++)
+			if (names[i].equalsIgnoreCase(value.trim())) return values[i];
+		throw new IllegalArgumentException("Bad value for " + key + ": " + value);
+	}
+
+	private static boolean isProbability(double p) {
+		return p >= 0 && p <= 1;
+	}
+
+	private static void check(boolean condition, String message) {
+		if (!condition) throw new IllegalArgumentException("Bad configuration: " + message);
+	}
+}
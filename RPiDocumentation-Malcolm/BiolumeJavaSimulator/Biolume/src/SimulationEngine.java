@@ -0,0 +1,754 @@
+/**
+ * SimulationEngine.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the headless Biolume Simulation Engine
+ * which owns the Biolume population and is in charge of stepping it. It has
+ * no dependency on Processing, so it can be driven by the Simulator (the
+ * Processing viewer/controller) or by a batch process without a display.
+ * - Human interaction reaches the engine through sensor() and the stationary
+ * visitor location; global pressures are set by whoever drives the engine.
+ * - The population can be stepped serially or in parallel (see SimConfig.step_mode
+ * and stepPopulation() for how the two modes order the Biolumes).
+ * - A viewer on another thread reads the population from its snapshot,
+ * published at step boundaries (see getSnapshot()).
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class SimulationEngine {
+
+    /**************************************************************************
+     * Simulation Engine parameters.
+     */
+
+	// The configuration of this simulation.
+	private final SimConfig cfg;
+
+	// The state of the population, stored as flat per-cell arrays.
+	private PopulationStore store;
+
+	// The population of Biolumes (views over the store, indexed by cell id).
+	private Biolume[] population;
+
+	// The order in which the Biolumes execute during a step.
+	private ExecutionOrder order;
+
+	// Master seed of the simulation and amount of populations generated.
+	private final long seed;
+	private int generation = 0;
+
+	// Amount of steps executed by the current population.
+	private long steps = 0;
+
+	// Random number streams: one per cell, followed by the engine's own.
+	private RandomStreams rng;
+	private int engine_stream;
+
+	// Message clock: advanced before every execution slot (a Biolume in
+	// serial mode, a colour class in parallel mode) and used to version the
+	// outboxes. Neighbors never share a slot, so their versions never tie.
+	private long message_clock = 0;
+
+	// Step mode (CC.SERIAL or CC.PARALLEL).
+	private volatile int step_mode;
+
+	// Colour classes of the grid and the order in which they execute.
+	private final GridColoring coloring;
+	private final ExecutionOrder class_order;
+
+	// Precomputed neighborhoods of the grid.
+	private final Topology topology;
+
+	// Global color pressure kernel, and the fitness of each LED.
+	private final PressureKernel pressure_kernel = PressureKernel.create();
+	private float[] fitness0;
+	private float[] fitness1;
+
+	// Biolumes left to the kernel by the last display cycle evaluation, and
+	// the fitness of each phase of a display trajectory (DisplayCycle.java).
+	private int[] uncached;
+	private float[] phase_fitness0;
+	private float[] phase_fitness1;
+
+	// Targets and amount of pressures of the last evaluation, the number of
+	// that setting, and the amount of settings numbered so far. Genotypes
+	// keep the rewards of the last setting they were evaluated under, and
+	// they belong to this engine's population only.
+	private long pressure_settings = 0;
+	private float[] setting_target0;
+	private float[] setting_target1;
+	private int setting_pressures = 0;
+	private long pressure_setting = -1;
+
+	// Worker threads for the parallel step mode (created on first use), and
+	// whether births are being deferred to the end of their colour class.
+	private ForkJoinPool pool;
+	private boolean defer_births = false;
+
+	// Global pressures management parameters and flags.
+	private volatile float[] led0_target = new float[3];
+	private volatile float[] led1_target = new float[3];
+	private volatile boolean LED0_pressure_on = false;
+	private volatile boolean LED1_pressure_on = false;
+
+	// Location of the stationary visitor (negative if there is none).
+	private volatile int visitor_x = -1;
+	private volatile int visitor_y = -1;
+
+	// Snapshot published at every step boundary for a renderer (null until
+	// one is requested, see getSnapshot()).
+	private volatile PopulationSnapshot snapshot;
+
+	// Recorder of every Nth step (null if the run is not recorded).
+	private volatile FrameExporter exporter;
+
+    /**************************************************************************
+     * Simulation Engine methods.
+     */
+
+	/**
+	 * Simulation Engine constructor. The population is initialized right away.
+	 * @param cfg:	The configuration of the simulation.
+	 * @param seed:	The master seed from which every random stream is derived.
+	 */
+	public SimulationEngine(SimConfig cfg, long seed) {
+		this.cfg = cfg;
+		this.seed = seed;
+		this.step_mode = cfg.step_mode;
+		this.coloring = new GridColoring(cfg.x_size, cfg.y_size);
+		this.class_order = new ExecutionOrder(this.coloring.numClasses());
+		this.topology = new Topology(cfg.x_size, cfg.y_size);
+		this.initializePopulation();
+	}
+
+	/**
+	 * This method instantly clears out all existing Biolumes (if any existed
+	 * in the first place) and replaces them with a newly generated population.
+	 *  The genomes of the new Biolumes will have a length of CC.EXE_SIZE_MIN
+	 *  and their genomes will be composed of randomly selected instructions.
+	 *  Every new population gets fresh random streams, derived from the master
+	 *  seed and the amount of populations generated so far (see
+	 *  RandomStreams.derive()).
+	 */
+	public void initializePopulation() {
+		int cells = this.cfg.x_size * this.cfg.y_size;
+		this.rng = new RandomStreams(RandomStreams.derive(this.seed, this.generation++), cells + 1);
+		this.engine_stream = cells;
+		this.steps = 0;
+		this.store = new PopulationStore(cells);
+		this.population = new Biolume[cells];
+		for (int id = 0; id < this.population.length; id++)
+			this.population[id] = new Biolume(this, this.store, this.rng, id);
+		this.order = new ExecutionOrder(cells);
+		this.publishSnapshot();
+	}
+
+	/**
+	 * @return:	The configuration of this simulation.
+	 */
+	public SimConfig getConfig() {
+		return this.cfg;
+	}
+
+	/**
+	 * This method returns the Biolume at the given location.
+	 * @param x:	The x coordinate of the Biolume.
+	 * @param y:	The y coordinate of the Biolume.
+	 * @return:	The Biolume at (x, y).
+	 */
+	public Biolume getBiolume(int x, int y) {
+		return this.population[x * this.cfg.y_size + y];
+	}
+
+	/**
+	 * @return:	The amount of steps executed by the current population.
+	 */
+	public long getSteps() {
+		return this.steps;
+	}
+
+	/**
+	 * This method returns the snapshot of the population, which is published
+	 * at the end of every step (and whenever the population is restarted or
+	 * de-energized) from then on. It lets a renderer on another thread read
+	 * whole steps without blocking the stepping (see PopulationSnapshot.java).
+	 * @return:	The snapshot of the population.
+	 */
+	public synchronized PopulationSnapshot getSnapshot() {
+		if (this.snapshot == null) {
+			this.snapshot = new PopulationSnapshot(this.cfg.x_size, this.cfg.y_size);
+			this.publishSnapshot();
+		}
+		return this.snapshot;
+	}
+
+	/**
+	 * This method publishes the current state of the population to the
+	 * snapshot, if there is one.
+	 */
+	private void publishSnapshot() {
+		PopulationSnapshot s = this.snapshot;
+		if (s != null) s.publish(this.store, this.steps);
+	}
+
+	/**
+	 * This method sets the exporter that records the population, which is
+	 * handed the population at the end of every step from then on (see
+	 * FrameExporter.java).
+	 * @param exporter:	The exporter (null to stop recording).
+	 */
+	public void setExporter(FrameExporter exporter) {
+		this.exporter = exporter;
+	}
+
+	/**
+	 * @return:	The registry of the genotypes alive in the population.
+	 */
+	public GenotypeRegistry getGenotypes() {
+		return this.store.genotypes;
+	}
+
+	/**
+	 * @return:	True while colour classes are being stepped: births are then
+	 * registered once their class is over (see GenotypeRegistry.defer()).
+	 */
+	boolean defersBirths() {
+		return this.defer_births;
+	}
+
+	/**
+	 * This method steps every Biolume through its next instruction. The order
+	 * in which the Biolumes execute is randomly generated at every step. After
+	 * executing: if global pressures are on, the Biolumes are evaluated and
+	 * awarded energy by how close they are to the target display; otherwise,
+	 * interactive pressures rule, and the Biolumes are rewarded for sensing
+	 * CO2 generated by a stationary visitor, and sound generated by other
+	 * Biolumes.
+	 * - In CC.SERIAL mode the order is a uniformly random permutation of all
+	 * the Biolumes, so any two neighbors are equally likely to execute in
+	 * either order.
+	 * - In CC.PARALLEL mode only the order of the colour classes is random.
+	 * The Biolumes of a class execute concurrently, which is equivalent to
+	 * any serial order among them since they never share a neighbor; but
+	 * the orders are restricted to those that group the Biolumes by class
+	 * (e.g. two cells 3 columns apart always execute back to back).
+	 * - Every Biolume draws from its own random stream and the orders are
+	 * drawn from the engine's stream, so seeded runs are reproducible in both
+	 * modes regardless of the amount of threads.
+	 * - The snapshot (if any) is published, and the exporter (if any) handed
+	 * the population, once the step is complete.
+	 */
+	public void stepPopulation() {
+
+		if (this.step_mode == CC.PARALLEL) this.stepClasses();
+		else {
+		    // Step each Biolume through the next instruction in random order.
+			int[] to_go = this.order.shuffle(this.rng, this.engine_stream);
+		    for (int k = 0; k < to_go.length; k++) {
+		    	this.message_clock++;
+		    	population[to_go[k]].step();
+		    }
+		}
+
+		this.applyPressures();
+		this.steps++;
+		this.publishSnapshot();
+
+		FrameExporter e = this.exporter;
+		if (e != null) e.stepped(this.store, this.steps);
+	}
+
+	/**
+	 * This method applies the global pressures if they are on, or the
+	 * interactive pressures (sound, CO2) otherwise. It is the second half of
+	 * stepPopulation() and is package-private so benchmarks can time it alone.
+	 */
+	void applyPressures() {
+
+	    // Apply global pressures if they are on.
+	    if(this.LED0_pressure_on || LED1_pressure_on)
+	    	if(this.LED0_pressure_on && LED1_pressure_on) globalColorPressure(led0_target, led1_target, 2);
+	    	else if (this.LED0_pressure_on) globalColorPressure(led0_target, null, 1);
+	    	else globalColorPressure(null, led1_target, 1);
+	    else { // No global pressures, apply interactive features (sound, CO2).
+
+	    	// Sound check.
+	    	for (int id = 0; id < population.length; id++)
+	    		if (population[id].speakerIsOn() && !population[id].isReproducing())
+	    			this.sensor(id / this.cfg.y_size, id % this.cfg.y_size, this.cfg.sound_range, CC.SOUND);
+
+			// Ensure CO2 is awarded to Biolumes around stationary visitor.
+			int x_coor = this.visitor_x;
+			int y_coor = this.visitor_y;
+			if (x_coor >= 0 && y_coor >= 0 && x_coor < this.cfg.x_size && y_coor < this.cfg.y_size)
+				this.sensor(x_coor, y_coor, this.cfg.co2_range, CC.CO2);
+	    }
+
+	}
+
+	/**
+	 * This method steps every colour class, in random order, splitting each
+	 * class across the worker threads. A class is finished (and its writes
+	 * are visible) before the next class starts, and its births are then
+	 * registered in cell id order.
+	 */
+	private void stepClasses() {
+
+		if (this.pool == null)
+			this.pool = (this.cfg.step_threads > 0) ? new ForkJoinPool(this.cfg.step_threads) : new ForkJoinPool();
+
+		int[] to_go = this.class_order.shuffle(this.rng, this.engine_stream);
+		this.defer_births = true;
+		for (int k = 0; k < to_go.length; k++) {
+			int[] cells = this.coloring.cells(to_go[k]);
+			this.message_clock++;
+
+			// Small classes are not worth handing to the pool.
+			if (cells.length <= this.cfg.step_grain)
+				for (int i = 0; i < cells.length; i++) this.population[cells[i]].step();
+			else this.pool.invoke(new StepTask(this.population, cells, 0, cells.length, this.cfg.step_grain));
+			this.store.genotypes.flush(cells, this.store.genome);
+		}
+		this.defer_births = false;
+	}
+
+	/**
+	 * This task steps a range of the cells of one colour class, splitting it
+	 * in halves until ranges are at most step_grain cells long.
+	 */
+	private static class StepTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final Biolume[] population;
+		private final int[] cells;
+		private final int from;
+		private final int to;
+		private final int grain;
+
+		StepTask(Biolume[] population, int[] cells, int from, int to, int grain) {
+			this.population = population;
+			this.cells = cells;
+			this.from = from;
+			this.to = to;
+			this.grain = grain;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.to - this.from <= this.grain) {
+				for (int i = this.from; i < this.to; i++) this.population[this.cells[i]].step();
+				return;
+			}
+			int mid = (this.from + this.to) >>> 1;
+			invokeAll(new StepTask(this.population, this.cells, this.from, mid, this.grain),
+					new StepTask(this.population, this.cells, mid, this.to, this.grain));
+		}
+	}
+
+	/**
+	 * This method sends a message to the Biolumes that are neighboring the
+	 * point of origin. A message contains a set of Biolume display values
+	 * including the HSB values for 2 LEDs, the state of each LED, an index
+	 * for a MIDI file to be played by the speaker, and the state of the
+	 * speaker.
+	 * The message sent is the sender's message buffer (the last message it
+	 * received). It is published in the sender's outbox, stamped with the
+	 * message clock, and the neighbors pull it when they retrieve a message.
+	 * @param origin:	The cell id from which the broadcast originated.
+	 */
+	public void localBroadcast(int origin) {
+		this.receiveMessage(origin, this.store.outbox, origin * Variable.NUM_VARS);
+		this.store.outbox_version[origin] = this.message_clock;
+	}
+
+	/**
+	 * This method copies a Biolume's message buffer: the most recent message
+	 * sent by any of its neighbors after it was born, or all zeros if there
+	 * is none.
+	 * @param receiver:	The cell id of the receiving Biolume.
+	 * @param dest:	The array the message is copied into.
+	 * @param offset:	The position of the message in dest.
+	 */
+	public void receiveMessage(int receiver, int[] dest, int offset) {
+
+		// Find the newest outbox among the neighbors.
+		Topology.Neighborhood ring = this.topology.ring();
+		long newest = this.store.born_at[receiver];
+		int sender = -1;
+		for (int k = ring.start[receiver]; k < ring.start[receiver + 1]; k++) {
+			int neighbor = ring.cells[k];
+			if (this.store.outbox_version[neighbor] > newest) {
+				newest = this.store.outbox_version[neighbor];
+				sender = neighbor;
+			}
+		}
+
+		if (sender < 0) Arrays.fill(dest, offset, offset + Variable.NUM_VARS, 0);
+		else System.arraycopy(this.store.outbox, sender * Variable.NUM_VARS, dest, offset, Variable.NUM_VARS);
+	}
+
+	/**
+	 * @return:	The current value of the message clock.
+	 */
+	long getMessageClock() {
+		return this.message_clock;
+	}
+
+	/**
+	 * This method reproduces a parent Biolume over its replacement target
+	 * neighbor. If the criteria for the replacement target are met by multiple
+	 * neighbors, one of them is randomly chosen. If all neighbors are in the
+	 * reproduction process, a Biolume will not be allowed to reproduce. The
+	 * amount of energy transfered to the offpsring is determined by
+	 * CC.REPLACEMENT_METHOD.
+	 * The neighbors are scanned twice (once to count the ties, once to find
+	 * the chosen one) instead of collecting the candidates, so a birth does
+	 * not allocate and is safe to run from several threads at once.
+	 * @param parent:	The parent Biolume's cell id.
+	 * @param p_odd_step: Checksum to sync parent and offspring repro countdown.
+	 */
+	public void reproduceBiolume(int parent, boolean p_odd_step) {
+
+		boolean oldest = (this.cfg.replacement_target == CC.NGHBR_OLDEST);
+		double replacement_criterion;
+
+		if (oldest) {
+			// replace the oldest neighbor
+			replacement_criterion = -1.0;
+		}
+		else { // this.cfg.replacement_target == CC.NGHBR_LOWEST_ENERGY
+			// replace the neighbor with the lowest energy level
+			replacement_criterion = this.cfg.energy_max;
+		}
+
+		// Find the best criterion and how many neighbors share it.
+		Topology.Neighborhood ring = this.topology.ring();
+		int ties = 0;
+		for (int k = ring.start[parent]; k < ring.start[parent + 1]; k++) {
+			int current = ring.cells[k];
+
+			// Don't replace something already involved in reproduction.
+			if (population[current].isReproducing()) continue;
+
+			double current_criterion = oldest ? population[current].getAge() : population[current].getEnergy();
+			if (oldest ? current_criterion > replacement_criterion : current_criterion < replacement_criterion) {
+				// A new best target: it is the only one so far.
+				replacement_criterion = current_criterion;
+				ties = 1;
+			}
+			else if (current_criterion == replacement_criterion) ties++;
+		}
+
+		// No targets (all neighbors are in repro)? Can't repro.
+		if (ties == 0) return;
+
+		// Randomly choose one of the tied targets (randomly break ties).
+		int chosen = this.rng.nextInt(parent, ties);
+		int offspring = -1;
+		for (int k = ring.start[parent]; offspring < 0; k++) {
+			int current = ring.cells[k];
+			if (population[current].isReproducing()) continue;
+
+			double current_criterion = oldest ? population[current].getAge() : population[current].getEnergy();
+			if (current_criterion == replacement_criterion && chosen-- == 0) offspring = current;
+		}
+
+		// Replace the target.
+		Biolume child = population[offspring];
+		child.offspringReproduce(parent, p_odd_step);
+
+		if (this.cfg.replication_method == CC.SPLIT_ENERGY) {
+			double energy_available = population[parent].getEnergy();
+			child.setEnergy(energy_available/2.0);
+			population[parent].setEnergy(energy_available/2.0);
+		}
+		// else // CC.REPLICATION_METHOD == CC.ON_YOUR_OWN
+	}
+
+	/**
+	 * This method announces a sensor-triggering activity to all relevant
+	 * Biolumes.
+	 * Activities centered outside the grid are ignored.
+	 * @param x: The x-coordinate of the Biolume at the center of the activity.
+	 * @param y: The y-coordinate of the Biolume at the center of the activity.
+	 * @param range: The affected layers of neighbors to the center Biolume.
+	 * @param sensor_type:	The type of sensor triggered by the activity.
+	 */
+	public void sensor(int x, int y, int range, int sensor_type) {
+		if (this.LED0_pressure_on || LED1_pressure_on || range < 0) return;
+		if (x < 0 || x >= this.cfg.x_size || y < 0 || y >= this.cfg.y_size) return;
+
+		Topology.Neighborhood square = this.topology.square(range);
+		int center = x * this.cfg.y_size + y;
+		for (int k = square.start[center]; k < square.start[center + 1]; k++)
+			if (!population[square.cells[k]].isReproducing())
+				population[square.cells[k]].setDetection(sensor_type);
+	}
+
+	/**
+	 * This method enforces the global pressures on each Biolume. It calculates
+	 * the Eucledian distance between the displayed LED color and the
+	 * corresponding global target. The comparison is made in the HSB color
+	 * mode (which requires the Hue distance to be calculated differently due
+	 * to its circular nature). The reward assigned to each Biolume will fill
+	 * its energy reserve at an inversely proportional rate to the calculated
+	 * distance (maximum distance possible = 0% energy reward; minimum
+	 * distance possible = 100% energy reward). If both global pressures are
+	 * active, they are given equal weight in calculating the reward. If only
+	 * one pressure is active, then the distance between the other LED and the
+	 * target is ignored.
+	 * The distances of the whole population are calculated in bulk by the
+	 * pressure kernel (vectorised when the JDK Vector API is available), or
+	 * looked up by genotype where possible (see SimConfig.pressure_fitness).
+	 * @param pressurecolor0:	The HSB values of the global target for LED0.
+	 * @param pressurecolor1:	The HSB values of the global target for LED1.
+	 * @param pressures:	The amount of global pressures which are active.
+	 */
+	private void globalColorPressure(float[] pressurecolor0, float[] pressurecolor1, int pressures) {
+
+		int cells = this.population.length;
+		if (this.fitness0 == null || this.fitness0.length != cells) {
+			this.fitness0 = new float[cells];
+			this.fitness1 = new float[cells];
+			this.uncached = new int[cells];
+		}
+		if (this.cfg.pressure_fitness == CC.DISPLAY_CYCLES) {
+			this.displayCyclePressure(pressurecolor0, pressurecolor1, pressures);
+			return;
+		}
+
+		// Fitness of each LED for the whole population (0 if off or ignored).
+		if (pressurecolor0 != null)
+			this.pressure_kernel.fitness(this.store.display_current, Variable.LED0_H.ordinal(), pressurecolor0, cells, this.fitness0);
+		else Arrays.fill(this.fitness0, 0);
+		if (pressurecolor1 != null)
+			this.pressure_kernel.fitness(this.store.display_current, Variable.LED1_H.ordinal(), pressurecolor1, cells, this.fitness1);
+		else Arrays.fill(this.fitness1, 0);
+
+		for (int id = 0; id < cells; id++)
+			this.population[id].setEnergy(this.reward(this.fitness0[id], this.fitness1[id], pressures));
+	}
+
+	/**
+	 * This method enforces the global pressures like globalColorPressure(),
+	 * but Biolumes that never had a sensor detection are rewarded by the
+	 * display trajectory of their genome at their age (see DisplayCycle.java),
+	 * whose rewards are calculated once per genotype. The rest go through
+	 * the kernel.
+	 * @param pressurecolor0:	The HSB values of the global target for LED0.
+	 * @param pressurecolor1:	The HSB values of the global target for LED1.
+	 * @param pressures:	The amount of global pressures which are active.
+	 */
+	private void displayCyclePressure(float[] pressurecolor0, float[] pressurecolor1, int pressures) {
+
+		this.updatePressureSetting(pressurecolor0, pressurecolor1, pressures);
+
+		int others = 0;
+		for (int id = 0; id < this.population.length; id++) {
+			DisplayCycle cycle = null;
+			int phase = -1;
+			if (this.neverDetected(id)) {
+				cycle = this.store.genome[id].displayCycle();
+				phase = cycle.phase(this.store.age[id]);
+			}
+			if (phase < 0) {
+				this.uncached[others++] = id;
+				continue;
+			}
+			double[] rewards = cycle.rewards(this.pressure_setting);
+			if (rewards == null) rewards = this.rewards(cycle, pressurecolor0, pressurecolor1, pressures);
+			this.population[id].setEnergy(rewards[phase]);
+		}
+
+		// Fitness of each LED of the rest (0 if off or ignored).
+		if (pressurecolor0 != null)
+			this.pressure_kernel.fitness(this.store.display_current, Variable.LED0_H.ordinal(), pressurecolor0, this.uncached, others, this.fitness0);
+		if (pressurecolor1 != null)
+			this.pressure_kernel.fitness(this.store.display_current, Variable.LED1_H.ordinal(), pressurecolor1, this.uncached, others, this.fitness1);
+		for (int i = 0; i < others; i++) {
+			int id = this.uncached[i];
+			this.population[id].setEnergy(this.reward((pressurecolor0 == null) ? 0 : this.fitness0[id],
+					(pressurecolor1 == null) ? 0 : this.fitness1[id], pressures));
+		}
+	}
+
+	/**
+	 * @param fitness0:	The fitness of LED0 (0 if ignored).
+	 * @param fitness1:	The fitness of LED1 (0 if ignored).
+	 * @param pressures:	The amount of global pressures which are active.
+	 * @return:	The energy rewarded for the given fitness.
+	 */
+	private double reward(float fitness0, float fitness1, int pressures) {
+		return fitness0/CC.MAX_DIST * this.cfg.energy_max / pressures + fitness1/CC.MAX_DIST * this.cfg.energy_max / pressures;
+	}
+
+	/**
+	 * This method calculates the energy rewarded at every phase of a display
+	 * trajectory under the current pressure setting, and stores it in the
+	 * trajectory.
+	 * @param cycle:	The display trajectory.
+	 * @param pressurecolor0:	The HSB values of the global target for LED0.
+	 * @param pressurecolor1:	The HSB values of the global target for LED1.
+	 * @param pressures:	The amount of global pressures which are active.
+	 * @return:	The energy rewarded at every phase.
+	 */
+	private double[] rewards(DisplayCycle cycle, float[] pressurecolor0, float[] pressurecolor1, int pressures) {
+
+		if (this.phase_fitness0 == null) {
+			this.phase_fitness0 = new float[DisplayCycle.MAX_PHASES];
+			this.phase_fitness1 = new float[DisplayCycle.MAX_PHASES];
+		}
+		int phases = cycle.phases();
+		if (pressurecolor0 != null) cycle.fitness(this.pressure_kernel, Variable.LED0_H.ordinal(), pressurecolor0, this.phase_fitness0);
+		else Arrays.fill(this.phase_fitness0, 0, phases, 0);
+		if (pressurecolor1 != null) cycle.fitness(this.pressure_kernel, Variable.LED1_H.ordinal(), pressurecolor1, this.phase_fitness1);
+		else Arrays.fill(this.phase_fitness1, 0, phases, 0);
+
+		double[] rewards = cycle.newRewards(this.pressure_setting);
+		for (int p = 0; p < phases; p++)
+			rewards[p] = this.reward(this.phase_fitness0[p], this.phase_fitness1[p], pressures);
+		return rewards;
+	}
+
+	/**
+	 * This method gives the current pressure setting a new number if it is
+	 * not the one of the last evaluation (the targets may have been replaced
+	 * or changed in place).
+	 * @param pressurecolor0:	The HSB values of the global target for LED0.
+	 * @param pressurecolor1:	The HSB values of the global target for LED1.
+	 * @param pressures:	The amount of global pressures which are active.
+	 */
+	private void updatePressureSetting(float[] pressurecolor0, float[] pressurecolor1, int pressures) {
+		if (pressures == this.setting_pressures && Arrays.equals(pressurecolor0, this.setting_target0)
+				&& Arrays.equals(pressurecolor1, this.setting_target1)) return;
+
+		this.setting_target0 = (pressurecolor0 == null) ? null : pressurecolor0.clone();
+		this.setting_target1 = (pressurecolor1 == null) ? null : pressurecolor1.clone();
+		this.setting_pressures = pressures;
+		this.pressure_setting = ++this.pressure_settings;
+	}
+
+	/**
+	 * @param id:	The id of a Biolume.
+	 * @return:	True if none of its sensors fired since it was born.
+	 */
+	private boolean neverDetected(int id) {
+
+		// Detections are ages (not negative), so only NEVER_FIRED keeps the
+		// sign bit, and the AND of all of them is NEVER_FIRED only if none fired.
+		int fired = -1;
+		int s = id * CC.NUM_SENSORS;
+		for (int i = s; i < s + CC.NUM_SENSORS; i++) fired &= this.store.sensor_fired_at[i];
+		return fired == PopulationStore.NEVER_FIRED;
+	}
+
+	/**
+	 * This method instantly clears all energies accumulated by all Biolumes.
+	 */
+	public void clearAllEnergies() {
+		for (int id = 0; id < this.population.length; id++)
+			this.population[id].setEnergy(0.0);
+		this.publishSnapshot();
+	}
+
+    /**************************************************************************
+     * Step mode management methods.
+     */
+
+	/**
+	 * This method selects how the population is stepped. It takes effect at
+	 * the next step.
+	 * @param mode:	CC.SERIAL or CC.PARALLEL.
+	 */
+	public void setStepMode(int mode) {
+		if (mode != CC.SERIAL && mode != CC.PARALLEL)
+			throw new IllegalArgumentException("Unknown step mode: " + mode);
+		this.step_mode = mode;
+	}
+
+	/**
+	 * @return:	The step mode (CC.SERIAL or CC.PARALLEL).
+	 */
+	public int getStepMode() {
+		return this.step_mode;
+	}
+
+    /**************************************************************************
+     * Global pressure and visitor management methods.
+     */
+
+	/**
+	 * This method toggles the global pressure for LED0 on or off.
+	 */
+	public void toggleLED0Pressure() {
+		this.LED0_pressure_on = !this.LED0_pressure_on;
+	}
+
+	/**
+	 * This method toggles the global pressure for LED1 on or off.
+	 */
+	public void toggleLED1Pressure() {
+		this.LED1_pressure_on = !this.LED1_pressure_on;
+	}
+
+	/**
+	 * @return:	True if the global pressure for LED0 is on.
+	 */
+	public boolean isLED0PressureOn() {
+		return this.LED0_pressure_on;
+	}
+
+	/**
+	 * @return:	True if the global pressure for LED1 is on.
+	 */
+	public boolean isLED1PressureOn() {
+		return this.LED1_pressure_on;
+	}
+
+	/**
+	 * This method sets the HSB values of the global target for LED0.
+	 * @param hsb:	The target HSB values in the range [0, CC.MAX_VAR].
+	 */
+	public void setLED0Target(float[] hsb) {
+		this.led0_target = hsb;
+	}
+
+	/**
+	 * This method sets the HSB values of the global target for LED1.
+	 * @param hsb:	The target HSB values in the range [0, CC.MAX_VAR].
+	 */
+	public void setLED1Target(float[] hsb) {
+		this.led1_target = hsb;
+	}
+
+	/**
+	 * @return:	The HSB values of the global target for LED0.
+	 */
+	public float[] getLED0Target() {
+		return this.led0_target;
+	}
+
+	/**
+	 * @return:	The HSB values of the global target for LED1.
+	 */
+	public float[] getLED1Target() {
+		return this.led1_target;
+	}
+
+	/**
+	 * This method places the stationary visitor over the given Biolume. The
+	 * visitor generates CO2 for its surrounding Biolumes at every step while
+	 * no global pressures are on. Locations outside of the population remove
+	 * the visitor.
+	 * @param x:	The x coordinate of the Biolume next to the visitor.
+	 * @param y:	The y coordinate of the Biolume next to the visitor.
+	 */
+	public void setVisitor(int x, int y) {
+		this.visitor_x = x;
+		this.visitor_y = y;
+	}
+}
@@ -2,52 +2,81 @@
  * StepBiolumesThread.java
  * @authors: Tony J. Clark, Daniel J. Couvertier
  * @date: July 28, 2011
- * @description: This file contains the Step Thread for the Biolume Simulator. 
+ * @description: This file contains the Step Thread for the Biolume Simulator.
+ * - The thread steps the population in ticks. At a fixed rate, a tick is one
+ * step and ticks start every delay ms, measured from the start of the
+ * previous tick: the time the step takes is part of the delay, so the rate
+ * is exact as long as a step takes less than the delay. A tick that starts
+ * late does not make the next ones catch up in a burst.
+ * - Unthrottled, ticks run back to back and each tick is K steps; the
+ * thread yields between ticks so the display keeps up.
+ * - While paused, the thread is parked (it uses no CPU) until unpaused.
+ * Pausing, unpausing and changing the rate wake it up right away.
+ * - Changes to the whole population (restart, de-energize) are queued with
+ * runAtStepBoundary() and run by this thread between two steps, paused or
+ * not, so they never overlap a step.
  */
+
+import java.util.ArrayDeque;
+import java.util.concurrent.locks.LockSupport;
+
 public class StepBiolumesThread extends Thread {
 
     /**************************************************************************
      * Step Thread parameters.
      */
-	
-	// Is this thread currently running?
-	private boolean pause;
-	
-	// Delay between steps (in ms).
-	private int delay;
-	
+
+	// Is this thread currently paused?
+	private volatile boolean pause;
+
+	// Delay between steps (in ms), or 0 when unthrottled.
+	private volatile int delay;
+
+	// Steps per tick when unthrottled.
+	private volatile int steps_per_tick = 1;
+
 	// How many times have the Biolumes been stepped.
-	private int steps_count;
-	
+	private volatile int steps_count;
+
 	// Maximum number of steps to perform.
-	private int steps_max;
-	
-	// The Biolume Simulator.
-	private Simulator simulator;
-	
+	private final int steps_max;
+
+	// The Biolume Simulation Engine.
+	private final SimulationEngine engine;
+
+	// Tasks to run at the next step boundary, whether there are any, and
+	// whether this thread runs them (false before it starts and after it
+	// ends: tasks then run right away).
+	private final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+	private volatile boolean pending = false;
+	private boolean running = false;
+
     /**************************************************************************
      * Step Thread methods.
      */
-	
+
 	/**
-	 * Thread constructor.
+	 * Thread constructor. The thread starts paused.
 	 * @param delay_ms:	The delay in miliseconds.
 	 * @param max:	The maximum number of steps to perform.
-	 * @param sim:	The Biolume Simulator.
+	 * @param engine:	The Biolume Simulation Engine.
 	 */
-	public StepBiolumesThread(int delay_ms, int max, Simulator sim) {
+	public StepBiolumesThread(int delay_ms, int max, SimulationEngine engine) {
 		this.pause = true;
-		this.delay = delay_ms;
+		this.delay = Math.max(1, delay_ms);
 		this.steps_count = 0;
 		this.steps_max = max;
-		this.simulator = sim;
+		this.engine = engine;
 	}
-	
+
 	@Override
 	/**
 	 * Override of the thread start method.
 	 */
 	public synchronized void start() {
+		synchronized (this.tasks) {
+			this.running = true;
+		}
 		// call "Threads" start method
 		super.start();
 	}
@@ -55,38 +84,115 @@ public class StepBiolumesThread extends Thread {
 	@Override
 	/**
 	 * Override of the thread run method.
-	 * If the thread is not paused, a step (with a duration of delay), will
-	 * take place in which every Biolume executes one instruction. Otherwise, 
-	 * nothing happens.  
-	 * @throws:	InterruptedException error.
+	 * While the thread is not paused, the Biolumes are stepped tick after
+	 * tick (see the description above) until the maximum number of steps.
+	 * While it is paused, the thread is parked.
 	 */
 	public void run() {
+
+		// Start of the next tick, and the delay it was scheduled with.
+		long next = System.nanoTime();
+		int scheduled = this.delay;
+
 		// The thread's loop.
 		while (this.steps_count < this.steps_max) {
-			if (!this.pause) {
-				// increment the step counter
-				this.steps_count++;
-				// step the Biolumes
-				this.simulator.stepPopulation();
-				// set this thread to sleep until Biolumes should step again
-				try {
-					sleep(this.delay);
-				}
-				// exception catch is required in Java
-				catch (InterruptedException e) {
-					e.printStackTrace();
-				}
+
+			this.runTasks();
+			if (this.pause) {
+				LockSupport.park(this);
+				next = System.nanoTime();
+				continue;
+			}
+
+			int delay = this.delay;
+			if (delay == 0) { // Unthrottled: K steps, then let others run.
+				int k = this.steps_per_tick;
+				for (int s = 0; s < k && !this.pause && !this.pending && this.steps_count < this.steps_max; s++)
+					this.step();
+				Thread.yield();
+				next = System.nanoTime();
+				continue;
+			}
+
+			// The rate changed: restart the schedule from now.
+			if (delay != scheduled) {
+				scheduled = delay;
+				next = System.nanoTime();
+			}
+
+			this.step();
+
+			// The next tick starts one delay after this one; if this one
+			// started more than a delay late, the schedule restarts from now.
+			long period = delay * 1000000L;
+			next += period;
+			long now = System.nanoTime();
+			if (now - next > period) next = now;
+
+			// Wait for it (or until paused or the rate changes), running the
+			// tasks queued meanwhile.
+			long wait;
+			while (!this.pause && this.delay == delay && (wait = next - System.nanoTime()) > 0) {
+				LockSupport.parkNanos(this, wait);
+				this.runTasks();
+			}
+		}
+
+		// Tasks queued from now on run right away.
+		synchronized (this.tasks) {
+			this.running = false;
+		}
+		this.runTasks();
+	}
+
+	/**
+	 * This method steps the Biolumes once.
+	 */
+	private void step() {
+		this.steps_count++;
+		this.engine.stepPopulation();
+	}
+
+	/**
+	 * This method runs the queued tasks, in order.
+	 */
+	private void runTasks() {
+		while (this.pending) {
+			Runnable task;
+			synchronized (this.tasks) {
+				task = this.tasks.poll();
+				this.pending = !this.tasks.isEmpty();
 			}
+			if (task != null) task.run();
 		}
 	}
-	
+
 	/**
-	 * This method toggles the pause on this thread. 
+	 * This method has this thread run a task between two steps (or right
+	 * away, in the calling thread, if this thread is not running). Tasks run
+	 * in the order they were queued, even while paused.
+	 * @param task:	The task, usually a change to the whole population.
+	 */
+	public void runAtStepBoundary(Runnable task) {
+		synchronized (this.tasks) {
+			if (this.running) {
+				this.tasks.add(task);
+				this.pending = true;
+				LockSupport.unpark(this);
+				return;
+			}
+		}
+		task.run();
+	}
+
+	/**
+	 * This method toggles the pause on this thread.
 	 */
 	public void togglePause() {
 		this.pause = !this.pause;
+		LockSupport.unpark(this);
 	}
-	
+
 	/**
 	 * This method returns whether this thread is paused or not.
 	 * @return:	True if this thread is paused, False if otherwise.
@@ -96,23 +202,45 @@ public class StepBiolumesThread extends Thread {
 	}
 
 	/**
-	 * This method changes the delay on this thread step.
-	 * @param new_delay_ms:	The new delay, in miliseconds.
+	 * This method changes the delay on this thread step (the thread runs at a
+	 * fixed rate from then on).
+	 * @param new_delay_ms:	The new delay, in miliseconds (at least 1).
 	 */
 	public void changeDelay(int new_delay_ms) {
-		this.delay = new_delay_ms;
+		this.delay = Math.max(1, new_delay_ms);
+		LockSupport.unpark(this);
 	}
-	
+
+	/**
+	 * This method makes this thread step as fast as it can, in ticks of a
+	 * given amount of steps.
+	 * @param steps:	The amount of steps per tick (at least 1).
+	 */
+	public void unthrottle(int steps) {
+		this.steps_per_tick = Math.max(1, steps);
+		this.delay = 0;
+		LockSupport.unpark(this);
+	}
+
+	/**
+	 * This method returns whether this thread steps as fast as it can.
+	 * @return:	True if unthrottled, False if it runs at a fixed rate.
+	 */
+	public boolean isUnthrottled() {
+		return this.delay == 0;
+	}
+
 	/**
 	 * This method returns the thread's steps count.
-	 * @return:	The amount of steps executed. 
+	 * @return:	The amount of steps executed.
 	 */
 	public int getSteps() {
 		return this.steps_count;
 	}
-	
+
 	/**
-	 * This method resets this thread's steps count.
+	 * This method resets this thread's steps count (call it from a task, see
+	 * runAtStepBoundary(), while the thread is running).
 	 */
 	public void resetSteps() {
 		this.steps_count = 0;
@@ -0,0 +1,157 @@
+/**
+ * Topology.java
+ * @author: agent
+ * @date: October 17, 2026
+ * @description: This file describes the neighborhoods of the population
+ * grid, precomputed once per grid so the engine iterates flat arrays of cell
+ * ids instead of recomputing coordinates on every message, birth and sensor
+ * event. Each neighborhood is stored in compressed sparse row (CSR) form: the
+ * neighbors of cell id are cells[start[id]] ... cells[start[id + 1] - 1].
+ * - ring(): the 1-hop neighbors on the toroidal grid, without the cell itself
+ * (used by messages and reproduction).
+ * - square(range): the cells within range hops on the bounded grid, the cell
+ * itself included (used by sensors). Built the first time a range is used.
+ * - Both list the cells in the order the original nested loops visited them
+ * (x outer, y inner), so random choices among them are unchanged. On grids
+ * smaller than 3 cells along an axis the ring lists a wrapped neighbor once
+ * per direction it is reached from, exactly as the loops did.
+ */
+public class Topology {
+
+    /**************************************************************************
+     * Topology parameters.
+     */
+
+	/**
+	 * The neighbors of every cell of the grid, in CSR form.
+	 */
+	public static class Neighborhood {
+
+		// Position in cells of the first neighbor of each cell (size + 1).
+		public final int[] start;
+
+		// Neighbor cell ids, back to back.
+		public final int[] cells;
+
+		Neighborhood(int[] start, int[] cells) {
+			this.start = start;
+			this.cells = cells;
+		}
+	}
+
+	// Dimensions of the grid.
+	private final int x_size;
+	private final int y_size;
+
+	// 1-hop toroidal neighborhood.
+	private final Neighborhood ring;
+
+	// Bounded neighborhoods by range (null until first used).
+	private volatile Neighborhood[] squares = new Neighborhood[0];
+
+    /**************************************************************************
+     * Topology methods.
+     */
+
+	/**
+	 * Topology constructor. The 1-hop neighborhood is built right away.
+	 * @param x_size:	The width of the grid.
+	 * @param y_size:	The height of the grid.
+	 */
+	public Topology(int x_size, int y_size) {
+		this.x_size = x_size;
+		this.y_size = y_size;
+		this.ring = buildRing();
+	}
+
+	/**
+	 * @return:	The 1-hop neighbors of every cell on the toroidal grid.
+	 */
+	public Neighborhood ring() {
+		return this.ring;
+	}
+
+	/**
+	 * This method returns the cells within a range of every cell on the
+	 * bounded grid (no wraparound), building them on first use.
+	 * @param range:	The amount of hops (0 = only the cell itself).
+	 * @return:	The neighborhood of the given range.
+	 */
+	public Neighborhood square(int range) {
+		Neighborhood[] known = this.squares;
+		if (range < known.length && known[range] != null) return known[range];
+
+		synchronized (this) {
+			known = this.squares;
+			if (range < known.length && known[range] != null) return known[range];
+
+			Neighborhood[] grown = java.util.Arrays.copyOf(known, Math.max(known.length, range + 1));
+			grown[range] = buildSquare(range);
+			this.squares = grown;
+			return grown[range];
+		}
+	}
+
+	/**
+	 * This method builds the 1-hop toroidal neighborhood.
+	 * @return:	The neighborhood.
+	 */
+	private Neighborhood buildRing() {
+
+		int size = this.x_size * this.y_size;
+		int[] start = new int[size + 1];
+		int[] cells = new int[size * 8];
+		int n = 0;
+
+		for (int x = 0; x < this.x_size; x++)
+			for (int y = 0; y < this.y_size; y++) {
+				start[x * this.y_size + y] = n;
+				for (int i = x - 1; i <= x + 1; i++) {
+					int nx = (i < 0) ? i + this.x_size : (i >= this.x_size) ? i - this.x_size : i;
+					for (int j = y - 1; j <= y + 1; j++) {
+						int ny = (j < 0) ? j + this.y_size : (j >= this.y_size) ? j - this.y_size : j;
+						if (nx == x && ny == y) continue;
+						cells[n++] = nx * this.y_size + ny;
+					}
+				}
+			}
+		start[size] = n;
+
+		return new Neighborhood(start, java.util.Arrays.copyOf(cells, n));
+	}
+
+	/**
+	 * This method builds the bounded neighborhood of a range.
+	 * @param range:	The amount of hops.
+	 * @return:	The neighborhood.
+	 */
+	private Neighborhood buildSquare(int range) {
+
+		int size = this.x_size * this.y_size;
+		int[] start = new int[size + 1];
+
+		// Count first, since edge cells have fewer neighbors.
+		long total = 0;
+		for (int x = 0; x < this.x_size; x++) {
+			int w = Math.min(x + range, this.x_size - 1) - Math.max(x - range, 0) + 1;
+			for (int y = 0; y < this.y_size; y++)
+				total += (long) w * (Math.min(y + range, this.y_size - 1) - Math.max(y - range, 0) + 1);
+		}
+		if (total > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Range " + range + " is too large for a "
+					+ this.x_size + "x" + this.y_size + " grid.");
+
+		int[] cells = new int[(int) total];
+		int n = 0;
+		for (int x = 0; x < this.x_size; x++)
+			for (int y = 0; y < this.y_size; y++) {
+				start[x * this.y_size + y] = n;
+				for (int i = Math.max(x - range, 0); i <= Math.min(x + range, this.x_size - 1); i++)
+					for (int j = Math.max(y - range, 0); j <= Math.min(y + range, this.y_size - 1); j++)
+						cells[n++] = i * this.y_size + j;
+			}
+		start[size] = n;
+
+		return new Neighborhood(start, cells);
+	}
+}